@@ -378,10 +378,8 @@ public final class RefinedObjectClassDefinitionImpl implements RefinedObjectClas
             .objectClass(getObjectClassDefinition().getTypeName())
             .resourceRef(getResourceOid(), ResourceType.COMPLEX_TYPE);
 
-        // Setup definition
-        PrismObjectDefinition<ShadowType> newDefinition = accountShadow.getDefinition().cloneWithReplacedDefinition(
-                ShadowType.F_ATTRIBUTES, definition.toResourceAttributeContainerDefinition());
-        accountShadow.setDefinition(newDefinition);
+        // Setup definition (shared, constructed once per object class definition)
+        accountShadow.setDefinition(definition.getObjectDefinition());
 
         return accountShadow;
     }
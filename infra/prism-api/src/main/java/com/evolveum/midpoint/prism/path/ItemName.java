@@ -19,6 +19,9 @@ import java.util.List;
  */
 public class ItemName extends QName implements ItemPath {
 
+    // Lazily created, as getSegments() is called frequently when comparing paths.
+    private transient List<?> segments;
+
     public ItemName(String namespaceURI, String localPart) {
         super(namespaceURI, localPart);
     }
@@ -61,7 +64,11 @@ public class ItemName extends QName implements ItemPath {
     @NotNull
     @Override
     public List<?> getSegments() {
-        return Collections.singletonList(new QName(getNamespaceURI(), getLocalPart(), getPrefix()));      // todo eliminate QName construction while avoiding endless recursion
+        if (segments == null) {
+            // Plain QName here, to avoid endless recursion.
+            segments = Collections.singletonList(new QName(getNamespaceURI(), getLocalPart(), getPrefix()));
+        }
+        return segments;
     }
 
     @Override
@@ -61,6 +61,9 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
 
     protected transient PrismContext prismContext;          // beware, this one can easily be null
 
+    // Minimal number of values for which bulk add/remove operations use an index instead of repeated scans.
+    private static final int VALUE_INDEX_THRESHOLD = 20;
+
     /**
      * This is used for definition-less construction, e.g. in JAXB beans.
      *
@@ -409,6 +412,9 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
 
     public boolean addAll(Collection<V> newValues, boolean checkUniqueness, EquivalenceStrategy strategy) throws SchemaException {
         checkMutability();
+        if (checkUniqueness && strategy instanceof ParameterizedEquivalenceStrategy && isWorthIndexing(newValues)) {
+            return addAllIndexed(newValues, strategy);
+        }
         boolean changed = false;
         for (V val: newValues) {
             if (add(val, checkUniqueness, strategy)) {
@@ -455,6 +461,9 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
 
     public boolean removeAll(Collection<V> newValues) {
         checkMutability();
+        if (isWorthIndexing(newValues) && newValues.stream().allMatch(v -> getValueIndexKey(v) != null)) {
+            return removeAllIndexed(newValues);
+        }
         boolean changed = false;
         for (V val: newValues) {
             if (remove(val)) {
@@ -496,6 +505,89 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
         return changed;
     }
 
+    /**
+     * Returns a key that can be used to narrow down the candidates for value comparison in bulk operations:
+     * values with different keys must never be equal (under any parameterized equivalence strategy)
+     * nor represent the same value. Null means that the value cannot be indexed. See MID-5889.
+     */
+    @Nullable
+    protected Object getValueIndexKey(V value) {
+        return null;
+    }
+
+    private boolean isWorthIndexing(Collection<V> newValues) {
+        return newValues.size() > 1 && values.size() >= VALUE_INDEX_THRESHOLD && getValueIndexKey(values.get(0)) != null;
+    }
+
+    private Map<Object, List<V>> createValueIndex() {
+        Map<Object, List<V>> index = new HashMap<>();
+        for (V value : values) {
+            Object key = getValueIndexKey(value);
+            if (key != null) {
+                index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+            }
+        }
+        return index;
+    }
+
+    // Values without a key are not in the index. It is OK, as they cannot be equal to values having a key.
+    private boolean addAllIndexed(Collection<V> newValues, EquivalenceStrategy strategy) throws SchemaException {
+        Map<Object, List<V>> index = createValueIndex();
+        boolean changed = false;
+        for (V newValue : newValues) {
+            Object key = getValueIndexKey(newValue);
+            if (key == null) {
+                if (add(newValue, true, strategy)) {
+                    changed = true;
+                }
+                continue;
+            }
+            if (newValue.getPrismContext() == null) {
+                newValue.setPrismContext(prismContext);
+            }
+            Itemable originalParent = newValue.getParent();
+            newValue.setParent(this);       // the same as in add(..)
+            List<V> candidates = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+            boolean present = false;
+            for (V candidate : candidates) {
+                if (strategy.equals(candidate, newValue)) {
+                    present = true;
+                    break;
+                }
+            }
+            if (present) {
+                newValue.setParent(originalParent);
+            } else if (add(newValue, false, strategy)) {
+                candidates.add(newValue);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // The same algorithm as remove(V), applied to candidates selected by the index.
+    private boolean removeAllIndexed(Collection<V> valuesToRemove) {
+        Map<Object, List<V>> index = createValueIndex();
+        Set<V> matching = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (V valueToRemove : valuesToRemove) {
+            List<V> candidates = index.get(getValueIndexKey(valueToRemove));
+            if (candidates != null) {
+                for (V candidate : candidates) {
+                    if (candidate.representsSameValue(valueToRemove, false)
+                            || candidate.equals(valueToRemove, EquivalenceStrategy.REAL_VALUE_CONSIDER_DIFFERENT_IDS)) {
+                        matching.add(candidate);
+                    }
+                }
+            }
+        }
+        if (matching.isEmpty()) {
+            return false;
+        }
+        values.removeIf(matching::contains);
+        matching.forEach(v -> v.setParent(null));
+        return true;
+    }
+
     public V remove(int index) {
         checkMutability();
         V removed = values.remove(index);
@@ -968,6 +1060,10 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
     public abstract Item<V,D> clone();
 
     public Item<V,D> createImmutableClone() {
+        if (immutable && getParent() == null) {
+            // Frozen and detached: nobody can change it, so the clone can share everything (i.e. be this object).
+            return this;
+        }
         Item<V,D> clone = clone();
         clone.freeze();
         return clone;
@@ -48,6 +48,13 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     protected final LinkedHashMap<QName, Item<?,?>> items = new LinkedHashMap<>();
     protected final Set<String> unqualifiedItemNames = new HashSet<>();
 
+    // Secondary index (local name -> items) used for namespace-tolerant lookups that would otherwise require
+    // a full scan of the items. It is created lazily, only for wide containers (e.g. shadow attributes or extensions),
+    // maintained on add/remove and rebuilt when found inconsistent with the items map.
+    private transient volatile LocalNameIndex itemsByLocalName;
+
+    private static final int LOCAL_NAME_INDEX_THRESHOLD = 16;
+
     private Long id;
 
     private C containerable = null;
@@ -346,10 +353,17 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
 //        if (itemName.getLocalPart().equals("modelOperationContext")) {
 //            System.out.println("Hello!");
 //        }
-        items.put(itemName, item);
+        Item<?, ?> replaced = items.put(itemName, item);
         if (QNameUtil.isUnqualified(itemName)) {
             unqualifiedItemNames.add(itemName.getLocalPart());
         }
+        LocalNameIndex index = itemsByLocalName;
+        if (index != null) {
+            if (replaced != null) {
+                index.remove(replaced);
+            }
+            index.add(item);
+        }
     }
 
     /**
@@ -419,6 +433,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
             ItemName existingItemName = existingItem.getElementName();
             items.remove(existingItemName);
             removeFromUnqualifiedIfNeeded(existingItemName);
+            removeFromLocalNameIndex(existingItem);
             existingItem.setParent(null);
         }
     }
@@ -432,6 +447,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
             iterator.remove();
         }
         unqualifiedItemNames.clear();
+        itemsByLocalName = null;
     }
 
     /**
@@ -467,6 +483,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         checkMutability();
         items.clear();
         unqualifiedItemNames.clear();
+        itemsByLocalName = null;
     }
 
     public boolean contains(Item item) {
@@ -695,9 +712,11 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     }
 
     private <IV extends PrismValue,ID extends ItemDefinition> Item<IV,ID> findItemByQNameFullScan(QName subName) throws SchemaException {
+        Collection<Item<?,?>> candidates = items.size() > LOCAL_NAME_INDEX_THRESHOLD ?
+                getItemsByLocalName(subName.getLocalPart()) : items.values();
 //        LOGGER.warn("Full scan while finding {} in {}", subName, this);
         Item<IV,ID> matching = null;
-        for (Item<?,?> item : items.values()) {
+        for (Item<?,?> item : candidates) {
             if (QNameUtil.match(subName, item.getElementName())) {
                 if (matching != null) {
                     String containerName = getParent() != null ? DebugUtil.formatElementName(getParent().getElementName()) : "";
@@ -859,6 +878,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
                     if (itemType.isAssignableFrom(item.getClass())) {
                         itemsIterator.remove();
                         removeFromUnqualifiedIfNeeded(itemName);
+                        removeFromLocalNameIndex(item);
                     } else {
                            throw new IllegalArgumentException("Attempt to remove item "+subName+" from "+this+
                                    " of type "+itemType+" while the existing item is of incompatible type "+item.getClass());
@@ -868,6 +888,78 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         }
     }
 
+    /**
+     * Returns items having the given local name, using the local name index. Before that, the index is checked
+     * against the items map (for hits as well as for misses) and rebuilt if it does not match, as the items
+     * can be modified bypassing this class, e.g. via getItems().
+     */
+    @NotNull
+    private Collection<Item<?, ?>> getItemsByLocalName(String localName) {
+        LocalNameIndex index = itemsByLocalName;
+        if (index == null || !isLocalNameIndexValid(index, localName)) {
+            index = new LocalNameIndex(items.values());
+            itemsByLocalName = index;
+        }
+        return index.get(localName);
+    }
+
+    /**
+     * The index is valid if it covers the same number of items as the items map and all its entries for
+     * the given local name are present in the map. As nobody can add items bypassing this class (the items
+     * map itself is not exposed), this detects any stale state relevant for the lookup.
+     */
+    private boolean isLocalNameIndexValid(LocalNameIndex index, String localName) {
+        if (index.size != items.size()) {
+            return false;
+        }
+        for (Item<?, ?> indexed : index.get(localName)) {
+            if (items.get(indexed.getElementName()) != indexed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeFromLocalNameIndex(Item<?, ?> item) {
+        LocalNameIndex index = itemsByLocalName;
+        if (index != null) {
+            index.remove(item);
+        }
+    }
+
+    private static final class LocalNameIndex {
+        private final Map<String, List<Item<?, ?>>> map = new HashMap<>();
+        private int size;
+
+        private LocalNameIndex(Collection<Item<?, ?>> items) {
+            for (Item<?, ?> item : items) {
+                add(item);
+            }
+        }
+
+        @NotNull
+        private List<Item<?, ?>> get(String localName) {
+            List<Item<?, ?>> list = map.get(localName);
+            return list != null ? list : Collections.emptyList();
+        }
+
+        private void add(Item<?, ?> item) {
+            map.computeIfAbsent(item.getElementName().getLocalPart(), k -> new ArrayList<>(1)).add(item);
+            size++;
+        }
+
+        private void remove(Item<?, ?> item) {
+            String localPart = item.getElementName().getLocalPart();
+            List<Item<?, ?>> list = map.get(localPart);
+            if (list != null && list.removeIf(i -> i == item)) {
+                size--;
+                if (list.isEmpty()) {
+                    map.remove(localPart);
+                }
+            }
+        }
+    }
+
     private void removeFromUnqualifiedIfNeeded(ItemName itemName) {
         if (QNameUtil.isUnqualified(itemName)) {
             removeUnqualifiedItemName(itemName);
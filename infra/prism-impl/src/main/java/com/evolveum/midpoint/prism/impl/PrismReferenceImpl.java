@@ -92,6 +92,12 @@ public class PrismReferenceImpl extends ItemImpl<PrismReferenceValue, PrismRefer
         return null;
     }
 
+    // Reference values with different OIDs are never equal, see PrismReferenceValueImpl.equals.
+    @Override
+    protected Object getValueIndexKey(PrismReferenceValue value) {
+        return value.getOid();
+    }
+
     @Override
     public Referencable getRealValue() {
         return getValue().getRealValue();
@@ -221,6 +221,10 @@ public abstract class PrismValueImpl implements PrismValue {
 
     @Override
     public PrismValue createImmutableClone() {
+        if (immutable && getParent() == null) {
+            // Frozen and detached: nobody can change it, so the clone can share everything (i.e. be this value).
+            return this;
+        }
         PrismValue clone = clone();
         clone.freeze();
         return clone;
@@ -1284,6 +1284,10 @@ public abstract class ItemDeltaImpl<V extends PrismValue,D extends ItemDefinitio
                 if (item.getDefinition() != null && item.getDefinition().isSingleValue()) {
                     //noinspection unchecked
                     item.replaceAll(PrismValueCollectionsUtil.cloneCollection(valuesToAdd), strategy);
+                } else if (item instanceof PrismReference && valuesToAdd.size() > 1) {
+                    // bulk addition uses value index in the item, avoiding O(n*m) comparisons (e.g. roleMembershipRef)
+                    //noinspection unchecked
+                    item.addAll(PrismValueCollectionsUtil.cloneCollection(valuesToAdd), strategy);
                 } else {
                     for (V valueToAdd : valuesToAdd) {
                         //noinspection unchecked
@@ -50,6 +50,14 @@ public class DomLexicalProcessor implements LexicalProcessor<String> {
 
     private static final QName SCHEMA_ELEMENT_QNAME = DOMUtil.XSD_SCHEMA_ELEMENT;
 
+    // Looking up the factory implementation is not cheap, so we do it only once per thread (like DOMUtil does for document builders).
+    private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY_THREAD_LOCAL = ThreadLocal.withInitial(() -> {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty("javax.xml.stream.isSupportingExternalEntities", false);
+        return xmlInputFactory;
+    });
+
     @NotNull private final SchemaRegistry schemaRegistry;
 
     public DomLexicalProcessor(@NotNull SchemaRegistry schemaRegistry) {
@@ -94,11 +102,7 @@ public class DomLexicalProcessor implements LexicalProcessor<String> {
     }
 
     private XMLInputFactory getXMLInputFactory() {
-        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-        xmlInputFactory.setProperty("javax.xml.stream.isSupportingExternalEntities", false);
-        // TODO: cache? static? prism context?
-        return xmlInputFactory;
+        return XML_INPUT_FACTORY_THREAD_LOCAL.get();
     }
 
     // code taken from Validator class
@@ -58,6 +58,9 @@ public abstract class AbstractJsonLexicalProcessor implements LexicalProcessor<S
 
     private static final String DEFAULT_NAMESPACE_MARKER = "##DEFAULT-NAMESPACE##";
 
+    // Object mappers are expensive to create but thread-safe once configured, so we share a single one for all parsers.
+    private static final ObjectMapper PARSING_MAPPER = createParsingMapper();
+
     @NotNull protected final SchemaRegistry schemaRegistry;
 
     AbstractJsonLexicalProcessor(@NotNull SchemaRegistry schemaRegistry) {
@@ -639,6 +642,11 @@ public abstract class AbstractJsonLexicalProcessor implements LexicalProcessor<S
     protected abstract QName tagToTypeName(Object tid, JsonParsingContext ctx) throws IOException, SchemaException;
 
     private JsonParser configureParser(JsonParser parser) {
+        parser.setCodec(PARSING_MAPPER);
+        return parser;
+    }
+
+    private static ObjectMapper createParsingMapper() {
         ObjectMapper mapper = new ObjectMapper();
         SimpleModule sm = new SimpleModule();
         sm.addDeserializer(QName.class, new QNameDeserializer());
@@ -648,8 +656,7 @@ public abstract class AbstractJsonLexicalProcessor implements LexicalProcessor<S
         sm.addDeserializer(ItemPathType.class, new ItemPathTypeDeserializer());
 
         mapper.registerModule(sm);
-        parser.setCodec(mapper);
-        return parser;
+        return mapper;
     }
 
     //endregion
@@ -33,6 +33,10 @@ import java.io.StringWriter;
 
 public class JsonLexicalProcessor extends AbstractJsonLexicalProcessor {
 
+    // Both are thread-safe; sharing them avoids re-creating symbol tables and serializer caches for each call.
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final ObjectMapper SERIALIZATION_MAPPER = configureMapperForSerialization();
+
     public JsonLexicalProcessor(@NotNull SchemaRegistry schemaRegistry) {
         super(schemaRegistry);
     }
@@ -49,9 +53,8 @@ public class JsonLexicalProcessor extends AbstractJsonLexicalProcessor {
 
     @Override
     protected com.fasterxml.jackson.core.JsonParser createJacksonParser(InputStream stream) throws SchemaException, IOException {
-        JsonFactory factory = new JsonFactory();
         try {
-            return factory.createParser(stream);
+            return FACTORY.createParser(stream);
         } catch (IOException e) {
             throw e;
         }
@@ -62,10 +65,9 @@ public class JsonLexicalProcessor extends AbstractJsonLexicalProcessor {
     }
     private JsonGenerator createJsonGenerator(StringWriter out) throws SchemaException{
         try {
-            JsonFactory factory = new JsonFactory();
-            JsonGenerator generator = factory.createGenerator(out);
+            JsonGenerator generator = FACTORY.createGenerator(out);
             generator.setPrettyPrinter(new DefaultPrettyPrinter());
-            generator.setCodec(configureMapperForSerialization());
+            generator.setCodec(SERIALIZATION_MAPPER);
 
             return generator;
         } catch (IOException ex){
@@ -74,7 +76,7 @@ public class JsonLexicalProcessor extends AbstractJsonLexicalProcessor {
 
     }
 
-    private ObjectMapper configureMapperForSerialization(){
+    private static ObjectMapper configureMapperForSerialization(){
         ObjectMapper mapper = new ObjectMapper();
         mapper.configure(SerializationFeature.WRITE_NULL_MAP_VALUES, false);
         mapper.setSerializationInclusion(Include.NON_NULL);
@@ -83,7 +85,7 @@ public class JsonLexicalProcessor extends AbstractJsonLexicalProcessor {
         return mapper;
     }
 
-    private Module createSerializerModule(){
+    private static Module createSerializerModule(){
         SimpleModule module = new SimpleModule("MidpointModule", new Version(0, 0, 0, "aa"));
         module.addSerializer(QName.class, new QNameSerializer());
         module.addSerializer(PolyString.class, new PolyStringSerializer());
@@ -45,6 +45,10 @@ public class YamlLexicalProcessor extends AbstractJsonLexicalProcessor {
     private static final String TAG_BINARY = YAML + "binary";       // base64-encoded string
     private static final String TAG_NULL = YAML + "null";
 
+    // Both are thread-safe; sharing them avoids re-creating symbol tables and serializer caches for each call.
+    private static final MidpointYAMLFactory FACTORY = new MidpointYAMLFactory();
+    private static final ObjectMapper SERIALIZATION_MAPPER = configureMapperForSerialization();
+
     public YamlLexicalProcessor(@NotNull SchemaRegistry schemaRegistry) {
         super(schemaRegistry);
     }
@@ -61,17 +65,16 @@ public class YamlLexicalProcessor extends AbstractJsonLexicalProcessor {
 
     public YAMLGenerator createJacksonGenerator(StringWriter out) throws SchemaException{
         try {
-            MidpointYAMLFactory factory = new MidpointYAMLFactory();
-            MidpointYAMLGenerator generator = (MidpointYAMLGenerator) factory.createGenerator(out);
+            MidpointYAMLGenerator generator = (MidpointYAMLGenerator) FACTORY.createGenerator(out);
             generator.setPrettyPrinter(new DefaultPrettyPrinter());
-            generator.setCodec(configureMapperForSerialization());
+            generator.setCodec(SERIALIZATION_MAPPER);
             return generator;
         } catch (IOException ex){
             throw new SchemaException("Schema error during serializing to JSON.", ex);
         }
     }
 
-    private ObjectMapper configureMapperForSerialization(){
+    private static ObjectMapper configureMapperForSerialization(){
         ObjectMapper mapper = new ObjectMapper();
         mapper.configure(SerializationFeature.WRITE_NULL_MAP_VALUES, false);
 //        mapper.enableDefaultTyping(DefaultTyping.NON_CONCRETE_AND_ARRAYS, As.EXISTING_PROPERTY);
@@ -89,7 +92,7 @@ public class YamlLexicalProcessor extends AbstractJsonLexicalProcessor {
         return mapper;
     }
 
-    private Module createSerializerModule(){
+    private static Module createSerializerModule(){
         SimpleModule module = new SimpleModule("MidpointModule", new Version(0, 0, 0, "aa"));
         module.addSerializer(QName.class, new QNameSerializer());
         module.addSerializer(PolyString.class, new PolyStringSerializer());
@@ -103,9 +106,8 @@ public class YamlLexicalProcessor extends AbstractJsonLexicalProcessor {
 
     @Override
     protected MidpointYAMLParser createJacksonParser(InputStream stream) throws SchemaException, IOException {
-        MidpointYAMLFactory factory = new MidpointYAMLFactory();
         try {
-            MidpointYAMLParser p = (MidpointYAMLParser) factory.createParser(stream);
+            MidpointYAMLParser p = (MidpointYAMLParser) FACTORY.createParser(stream);
 //            p.enable(Feature.BOGUS);
 //            String oid = p.getObjectId();
             return p;
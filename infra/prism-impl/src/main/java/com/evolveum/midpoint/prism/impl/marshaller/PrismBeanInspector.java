@@ -36,6 +36,7 @@ import javax.xml.namespace.QName;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Comparator.naturalOrder;
 import static java.util.Comparator.nullsLast;
@@ -54,17 +55,33 @@ public class PrismBeanInspector {
 
     //region Caching mechanism (multiple dimensions)
 
+    /*
+     * The caches are concurrent maps, as they are used heavily by bean marshaller/unmarshaller from many threads.
+     * Concurrent maps do not allow nulls, but null is both a legal parameter and a legal (cached) result here.
+     * So nulls are replaced by the following marker object. We intentionally avoid computeIfAbsent when calling
+     * the getter, because the getters can recursively call other cached methods.
+     */
+    private static final Object NULL = new Object();
+
+    private static Object mask(Object o) {
+        return o != null ? o : NULL;
+    }
+
     @FunctionalInterface
     interface Getter1<V, P1> {
         V get(P1 param1);
     }
 
+    @SuppressWarnings("unchecked")
     private <V, P1> V find1(Map<P1,V> cache, P1 param1, Getter1<V, P1> getter) {
-        if (cache.containsKey(param1)) {
-            return cache.get(param1);
+        Map<Object, Object> rawCache = (Map<Object, Object>) (Map) cache;
+        Object key = mask(param1);
+        Object cached = rawCache.get(key);
+        if (cached != null) {
+            return cached != NULL ? (V) cached : null;
         } else {
             V value = getter.get(param1);
-            cache.put(param1, value);
+            rawCache.put(key, mask(value));
             return value;
         }
     }
@@ -74,8 +91,10 @@ public class PrismBeanInspector {
         V get(P1 param1, P2 param2);
     }
 
+    @SuppressWarnings("unchecked")
     private <V, P1, P2> V find2(final Map<P1,Map<P2,V>> cache, final P1 param1, final P2 param2, final Getter2<V, P1, P2> getter) {
-        Map<P2, V> cache2 = cache.computeIfAbsent(param1, k -> Collections.synchronizedMap(new HashMap<>()));
+        Map<Object, Map<P2, V>> rawCache = (Map<Object, Map<P2, V>>) (Map) cache;
+        Map<P2, V> cache2 = rawCache.computeIfAbsent(mask(param1), k -> new ConcurrentHashMap<>());
         return find1(cache2, param2, p -> getter.get(param1, p));
     }
 
@@ -84,81 +103,83 @@ public class PrismBeanInspector {
         V get(P1 param1, P2 param2, P3 param3);
     }
 
+    @SuppressWarnings("unchecked")
     private <V, P1, P2, P3> V find3(final Map<P1,Map<P2,Map<P3,V>>> cache, final P1 param1, final P2 param2, final P3 param3, final Getter3<V, P1, P2, P3> getter) {
-        Map<P2, Map<P3, V>> cache2 = cache.computeIfAbsent(param1, k -> Collections.synchronizedMap(new HashMap<>()));
+        Map<Object, Map<P2, Map<P3, V>>> rawCache = (Map<Object, Map<P2, Map<P3, V>>>) (Map) cache;
+        Map<P2, Map<P3, V>> cache2 = rawCache.computeIfAbsent(mask(param1), k -> new ConcurrentHashMap<>());
         return find2(cache2, param2, param3, (p, q) -> getter.get(param1, p, q));
     }
     //endregion
 
     //region Individual inspection methods - cached versions
 
-    private Map<Class<?>, String> determineNamespace = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class<?>, String> determineNamespace = new ConcurrentHashMap<>();
 
     String determineNamespace(Class<?> paramType) {
         return find1(determineNamespace, paramType, this::determineNamespaceUncached);
     }
 
-    private Map<Class<?>, QName> determineTypeForClass = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class<?>, QName> determineTypeForClass = new ConcurrentHashMap<>();
 
     QName determineTypeForClass(Class<?> paramType) {
         return find1(determineTypeForClass, paramType, PrismBeanInspector::determineTypeForClassUncached);
     }
 
-    private Map<Field,Map<Method,Boolean>> isAttribute = Collections.synchronizedMap(new HashMap<>());
+    private Map<Field,Map<Method,Boolean>> isAttribute = new ConcurrentHashMap<>();
 
     boolean isAttribute(Field field, Method getter) {
         return find2(isAttribute, field, getter, this::isAttributeUncached);
     }
 
-    private Map<Class,Map<String,Method>> findSetter = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class,Map<String,Method>> findSetter = new ConcurrentHashMap<>();
 
     <T> Method findSetter(Class<T> beanClass, String fieldName) {
         //noinspection unchecked
         return find2(findSetter, beanClass, fieldName, (c, f) -> findSetterUncached(c, f));
     }
 
-    private Map<Package,Class> getObjectFactoryClassPackage = Collections.synchronizedMap(new HashMap<>());
+    private Map<Package,Class> getObjectFactoryClassPackage = new ConcurrentHashMap<>();
     Class getObjectFactoryClass(Package aPackage) {
         return find1(getObjectFactoryClassPackage, aPackage, p -> getObjectFactoryClassUncached(p));
     }
 
-    private Map<String,Class> getObjectFactoryClassNamespace = Collections.synchronizedMap(new HashMap<>());
+    private Map<String,Class> getObjectFactoryClassNamespace = new ConcurrentHashMap<>();
     Class getObjectFactoryClass(String namespaceUri) {
         return find1(getObjectFactoryClassNamespace, namespaceUri, s -> getObjectFactoryClassUncached(s));
     }
 
-    private Map<Class<?>, List<String>> getPropOrder = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class<?>, List<String>> getPropOrder = new ConcurrentHashMap<>();
 
     List<String> getPropOrder(Class<?> beanClass) {
         return find1(getPropOrder, beanClass, this::getPropOrderUncached);
     }
 
-    private Map<Class,Map<String,Method>> findElementMethodInObjectFactory = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class,Map<String,Method>> findElementMethodInObjectFactory = new ConcurrentHashMap<>();
 
     Method findElementMethodInObjectFactory(Class objectFactoryClass, String propName) {
         return find2(findElementMethodInObjectFactory, objectFactoryClass, propName,
                 (c, p) -> findElementMethodInObjectFactoryUncached(c, p));
     }
 
-    private Map<Class,Map<Method,Field>> lookupSubstitution = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class,Map<Method,Field>> lookupSubstitution = new ConcurrentHashMap<>();
 
     <T> Field lookupSubstitution(Class<T> beanClass, Method elementMethod) {
         return find2(lookupSubstitution, beanClass, elementMethod, this::lookupSubstitutionUncached);
     }
 
-    private Map<Class,Map<String,String>> findEnumFieldName = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class,Map<String,String>> findEnumFieldName = new ConcurrentHashMap<>();
 
     <T> String findEnumFieldName(Class<T> classType, String primValue) {
         return find2(findEnumFieldName, classType, primValue, (c, v) -> findEnumFieldNameUncached(c, v));
     }
 
-    private Map<Class,Map<String,String>> findEnumFieldValue = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class,Map<String,String>> findEnumFieldValue = new ConcurrentHashMap<>();
 
     <T> String findEnumFieldValue(Class<T> classType, String toStringValue) {
         return find2(findEnumFieldValue, classType, toStringValue, (c, v) -> findEnumFieldValueUncached(c, v));
     }
 
-    private Map<Field,Map<Class<?>,Map<String,QName>>> findTypeName = Collections.synchronizedMap(new HashMap<>());
+    private Map<Field,Map<Class<?>,Map<String,QName>>> findTypeName = new ConcurrentHashMap<>();
 
     // Determines type for field/content combination. Field information is used only for simple XSD types.
     QName findTypeName(Field field, Class<?> contentClass, String defaultNamespacePlaceholder) {
@@ -166,7 +187,7 @@ public class PrismBeanInspector {
                 this::findTypeNameUncached);
     }
 
-    private Map<String,Map<Class<?>,Map<String,QName>>> findFieldElementQName = Collections.synchronizedMap(new HashMap<>());
+    private Map<String,Map<Class<?>,Map<String,QName>>> findFieldElementQName = new ConcurrentHashMap<>();
 
     QName findFieldElementQName(String fieldName, Class<?> beanClass, String defaultNamespace) {
         return find3(findFieldElementQName, fieldName, beanClass, defaultNamespace,
@@ -174,13 +195,13 @@ public class PrismBeanInspector {
                         defaultNamespace1));
     }
 
-    private Map<Class,Map<String,Method>> findPropertyGetter = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class,Map<String,Method>> findPropertyGetter = new ConcurrentHashMap<>();
 
     public <T> Method findPropertyGetter(Class<T> beanClass, String propName) {
         return find2(findPropertyGetter, beanClass, propName, this::findPropertyGetterUncached);
     }
 
-    private Map<Class,Map<String,Field>> findPropertyField = Collections.synchronizedMap(new HashMap<>());
+    private Map<Class,Map<String,Field>> findPropertyField = new ConcurrentHashMap<>();
 
     public <T> Field findPropertyField(Class<T> beanClass, String propName) {
         return find2(findPropertyField, beanClass, propName, this::findPropertyFieldUncached);
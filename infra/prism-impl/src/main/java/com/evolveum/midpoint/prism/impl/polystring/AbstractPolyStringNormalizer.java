@@ -16,9 +16,6 @@ import com.evolveum.prism.xml.ns._public.types_3.PolyStringNormalizerConfigurati
 
 public abstract class AbstractPolyStringNormalizer implements PolyStringNormalizer, ConfigurableNormalizer {
 
-    private static final String WHITESPACE_REGEX = "\\s+";
-    private static final Pattern WHITESPACE_PATTERN = Pattern.compile(WHITESPACE_REGEX);
-
     private PolyStringNormalizerConfigurationType configuration;
 
     @Override
@@ -38,9 +35,21 @@ public abstract class AbstractPolyStringNormalizer implements PolyStringNormaliz
      * Unicode Normalization Form Compatibility Decomposition (NFKD)
      */
     protected String nfkd(String s) {
+        if (isAscii(s)) {
+            return s;           // ASCII characters are not affected by NFKD; this is the most frequent case
+        }
         return Normalizer.normalize(s, Normalizer.Form.NFKD);
     }
 
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected String replaceAll(String s, Pattern pattern, String replacement) {
         return pattern.matcher(s).replaceAll(replacement);
     }
@@ -60,8 +69,42 @@ public abstract class AbstractPolyStringNormalizer implements PolyStringNormaliz
         return out.toString();
     }
 
+    /**
+     * Replaces each run of whitespace characters by a single space.
+     * Equivalent to replacing "\s+" regex by " ", but avoids the regex machinery and does not create a new
+     * string if there's nothing to replace.
+     */
     protected String trimWhitespace(String s) {
-        return replaceAll(s, WHITESPACE_PATTERN, " ");
+        int length = s.length();
+        StringBuilder out = null;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (isWhitespace(c)) {
+                int end = i + 1;
+                while (end < length && isWhitespace(s.charAt(end))) {
+                    end++;
+                }
+                if (out == null) {
+                    if (c == ' ' && end == i + 1) {
+                        continue;           // a single space needs no replacement
+                    }
+                    out = new StringBuilder(length);
+                    out.append(s, 0, i);
+                }
+                out.append(' ');
+                i = end - 1;
+            } else if (out != null) {
+                out.append(c);
+            }
+        }
+        return out != null ? out.toString() : s;
+    }
+
+    /**
+     * Whitespace as understood by "\s" in (non-unicode) regular expressions.
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     protected String lowerCase(String s) {
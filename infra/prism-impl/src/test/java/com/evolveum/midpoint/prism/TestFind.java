@@ -7,12 +7,19 @@
 package com.evolveum.midpoint.prism;
 
 import static com.evolveum.midpoint.prism.util.PrismTestUtil.getPrismContext;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
 import static org.testng.AssertJUnit.assertEquals;
 
 import java.io.IOException;
 
+import com.evolveum.midpoint.prism.impl.PrismContainerValueImpl;
+import com.evolveum.midpoint.prism.impl.PrismPropertyImpl;
+import com.evolveum.midpoint.prism.path.ItemName;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
@@ -163,6 +170,114 @@ public class TestFind {
         assertEquals("Wrong value2 description (path="+path+")", "Assignment 2", value2.findProperty(AssignmentType.F_DESCRIPTION).getRealValue());
     }
 
+    /**
+     * Unqualified lookups in wide container values (more than 16 items) use the local name index.
+     * Checks that the index is kept consistent through add, remove, clear, removeAll and clone.
+     */
+    @Test
+    public void testFindUnqualifiedInWideContainerValue() throws SchemaException {
+        final String TEST_NAME = "testFindUnqualifiedInWideContainerValue";
+        System.out.println("===[ "+TEST_NAME+" ]===");
+
+        // GIVEN
+        PrismContainerValue<?> pcv = createWideContainerValue(20);
+        assertWideLookups(pcv, 0, 20);
+
+        // add
+        pcv.add(createWideProperty(20));
+        assertWideLookups(pcv, 0, 21);
+
+        // remove
+        pcv.remove(pcv.findItem(new ItemName(NS_EXTENSION, "attr0")));
+        assertNull("Removed item found", pcv.findItem(new ItemName("attr0")));
+        assertWideLookups(pcv, 1, 21);
+
+        // replace (same name, different item)
+        PrismProperty<String> replacement = createWideProperty(5);
+        replacement.setRealValue("replaced");
+        pcv.addReplaceExisting(replacement);
+        assertSame("Replaced item not found", replacement, pcv.findItem(new ItemName("attr5")));
+        assertWideLookups(pcv, 1, 21);
+
+        // clone
+        PrismContainerValue<?> clone = pcv.clone();
+        assertWideLookups(clone, 1, 21);
+        assertNotSame("Original item found in clone", pcv.findItem(new ItemName("attr10")), clone.findItem(new ItemName("attr10")));
+        clone.remove(clone.findItem(new ItemName(NS_EXTENSION, "attr1")));
+        assertNull("Removed item found in clone", clone.findItem(new ItemName("attr1")));
+        assertNotNull("Item removed from clone missing in original", pcv.findItem(new ItemName("attr1")));
+
+        // clear
+        pcv.clear();
+        assertNull("Item found after clear", pcv.findItem(new ItemName("attr10")));
+        addWideProperties(pcv, 0, 20);
+        assertWideLookups(pcv, 0, 20);
+
+        // removeAll
+        pcv.removeAll();
+        assertNull("Item found after removeAll", pcv.findItem(new ItemName("attr10")));
+        addWideProperties(pcv, 0, 20);
+        assertWideLookups(pcv, 0, 20);
+    }
+
+    /**
+     * Items removed bypassing the container value (via live getItems() collection) must not be found
+     * via the local name index, neither for hits nor for misses.
+     */
+    @Test
+    public void testFindUnqualifiedAfterRemovalViaGetItems() throws SchemaException {
+        final String TEST_NAME = "testFindUnqualifiedAfterRemovalViaGetItems";
+        System.out.println("===[ "+TEST_NAME+" ]===");
+
+        // GIVEN
+        PrismContainerValue<?> pcv = createWideContainerValue(20);
+        assertWideLookups(pcv, 0, 20);
+
+        // WHEN
+        pcv.getItems().removeIf(item -> "attr3".equals(item.getElementName().getLocalPart()));
+
+        // THEN
+        assertNull("Item removed via getItems() found", pcv.findItem(new ItemName("attr3")));
+        pcv.add(createWideProperty(3));
+        assertWideLookups(pcv, 0, 20);
+
+        // WHEN
+        pcv.getItems().removeIf(item -> "attr7".equals(item.getElementName().getLocalPart()));
+
+        // THEN
+        assertNull("Unknown item found", pcv.findItem(new ItemName("unknown")));
+        assertNull("Item removed via getItems() found", pcv.findItem(new ItemName("attr7")));
+    }
+
+    private PrismContainerValue<?> createWideContainerValue(int count) throws SchemaException {
+        PrismContainerValue<?> pcv = new PrismContainerValueImpl<>(getPrismContext());
+        addWideProperties(pcv, 0, count);
+        return pcv;
+    }
+
+    private void addWideProperties(PrismContainerValue<?> pcv, int from, int to) throws SchemaException {
+        for (int i = from; i < to; i++) {
+            pcv.add(createWideProperty(i));
+        }
+    }
+
+    private PrismProperty<String> createWideProperty(int i) {
+        PrismProperty<String> property = new PrismPropertyImpl<>(new ItemName(NS_EXTENSION, "attr" + i), getPrismContext());
+        property.setRealValue("value" + i);
+        return property;
+    }
+
+    private void assertWideLookups(PrismContainerValue<?> pcv, int from, int to) {
+        assertEquals("Wrong # of items", to - from, pcv.getItems().size());
+        for (int i = from; i < to; i++) {
+            Item<?, ?> qualified = pcv.findItem(new ItemName(NS_EXTENSION, "attr" + i));
+            assertNotNull("Item attr" + i + " not found", qualified);
+            assertSame("Unqualified lookup of attr" + i + " found something other", qualified, pcv.findItem(new ItemName("attr" + i)));
+        }
+        assertNull("Unknown item found", pcv.findItem(new ItemName("unknown")));
+        assertNull("Item found in a wrong namespace", pcv.findItem(new ItemName(NS_FOO, "attr" + from)));
+    }
+
     private <T> T findUser(ItemPath path) throws SchemaException, SAXException, IOException {
         PrismObject<UserType> user = createUser();
         return find(user, path);
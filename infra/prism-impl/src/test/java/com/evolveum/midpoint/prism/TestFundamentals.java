@@ -7,12 +7,14 @@
 package com.evolveum.midpoint.prism;
 
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
-import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 
+import com.evolveum.midpoint.prism.impl.PrismContainerValueImpl;
+import com.evolveum.midpoint.prism.impl.PrismPropertyImpl;
 import com.evolveum.midpoint.prism.impl.PrismPropertyValueImpl;
 import com.evolveum.midpoint.prism.impl.xnode.MapXNodeImpl;
 import com.evolveum.prism.xml.ns._public.types_3.RawType;
@@ -85,4 +87,75 @@ public class TestFundamentals {
         assertEquals("Wrong or missing type QName", typeQName, rawTypeClone.getXnode().getTypeQName());
     }
 
+    @Test
+    public void testItemImmutableClone() throws Exception {
+        System.out.println("\n\n===[ testItemImmutableClone ]===\n");
+        // GIVEN
+        PrismProperty<String> detached = createProperty("foo");
+        detached.freeze();
+
+        PrismProperty<String> attached = createProperty("foo");
+        new PrismContainerValueImpl<>().add(attached);
+        attached.freeze();
+
+        PrismProperty<String> mutable = createProperty("foo");
+
+        // WHEN
+        PrismProperty<String> detachedClone = detached.createImmutableClone();
+        PrismProperty<String> attachedClone = attached.createImmutableClone();
+        PrismProperty<String> mutableClone = mutable.createImmutableClone();
+
+        // THEN
+        assertSame("Frozen detached item was copied", detached, detachedClone);
+
+        assertNotSame("Frozen attached item was not copied", attached, attachedClone);
+        assertNull("Clone of attached item has a parent", attachedClone.getParent());
+        assertTrue("Clone of attached item is not immutable", attachedClone.isImmutable());
+        assertEquals("Wrong clone of attached item", attached.getRealValues(), attachedClone.getRealValues());
+
+        assertNotSame("Mutable item was not copied", mutable, mutableClone);
+        assertFalse("Original mutable item was frozen", mutable.isImmutable());
+        assertTrue("Clone of mutable item is not immutable", mutableClone.isImmutable());
+        assertEquals("Wrong clone of mutable item", mutable.getRealValues(), mutableClone.getRealValues());
+    }
+
+    @Test
+    public void testValueImmutableClone() throws Exception {
+        System.out.println("\n\n===[ testValueImmutableClone ]===\n");
+        // GIVEN
+        PrismPropertyValue<String> detached = new PrismPropertyValueImpl<>("foo");
+        detached.freeze();
+
+        PrismPropertyValue<String> attached = new PrismPropertyValueImpl<>("foo");
+        createProperty().addValue(attached);
+        attached.freeze();
+
+        PrismPropertyValue<String> mutable = new PrismPropertyValueImpl<>("foo");
+
+        // WHEN
+        PrismValue detachedClone = detached.createImmutableClone();
+        PrismValue attachedClone = attached.createImmutableClone();
+        PrismValue mutableClone = mutable.createImmutableClone();
+
+        // THEN
+        assertSame("Frozen detached value was copied", detached, detachedClone);
+
+        assertNotSame("Frozen attached value was not copied", attached, attachedClone);
+        assertNull("Clone of attached value has a parent", attachedClone.getParent());
+        assertTrue("Clone of attached value is not immutable", attachedClone.isImmutable());
+        assertEquals("Wrong clone of attached value", attached.getRealValue(), attachedClone.getRealValue());
+
+        assertNotSame("Mutable value was not copied", mutable, mutableClone);
+        assertFalse("Original mutable value was frozen", mutable.isImmutable());
+        assertTrue("Clone of mutable value is not immutable", mutableClone.isImmutable());
+        assertEquals("Wrong clone of mutable value", mutable.getRealValue(), mutableClone.getRealValue());
+    }
+
+    private PrismProperty<String> createProperty(String... values) {
+        PrismProperty<String> property = new PrismPropertyImpl<>(new QName(NS_FOO, "prop"), PrismTestUtil.getPrismContext());
+        for (String value : values) {
+            property.addValue(new PrismPropertyValueImpl<>(value));
+        }
+        return property;
+    }
 }
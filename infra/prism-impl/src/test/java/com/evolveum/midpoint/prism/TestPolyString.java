@@ -16,6 +16,7 @@ import static org.testng.AssertJUnit.assertTrue;
 import javax.xml.namespace.QName;
 
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.apache.commons.lang.StringUtils;
 import org.testng.annotations.Test;
 
 import com.evolveum.midpoint.prism.foo.UserType;
@@ -26,7 +27,10 @@ import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.polystring.PolyStringNormalizer;
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringNormalizerConfigurationType;
 
+import java.text.Normalizer;
 import java.util.HashMap;
+import java.util.Random;
+import java.util.regex.Pattern;
 
 /**
  * @author semancik
@@ -220,6 +224,74 @@ public class TestPolyString extends AbstractPrismTest {
                 "  Ľala  ho  papľuha!    ");
     }
 
+    /**
+     * The normalizers used to be implemented using regular expressions. Checks that the current implementation
+     * gives the same results on random strings containing non-ASCII letters, combining marks, ligatures,
+     * surrogate pairs as well as ASCII and Unicode whitespace.
+     */
+    @Test
+    public void testRegexEquivalence() {
+        final String TEST_NAME = "testRegexEquivalence";
+        displayTestTitle(TEST_NAME);
+
+        PolyStringNormalizerConfigurationType noNfkd = new PolyStringNormalizerConfigurationType();
+        noNfkd.setNfkd(false);
+
+        AlphanumericPolyStringNormalizer alphanumeric = new AlphanumericPolyStringNormalizer();
+        AlphanumericPolyStringNormalizer alphanumericNoNfkd = new AlphanumericPolyStringNormalizer();
+        alphanumericNoNfkd.configure(noNfkd);
+        PassThroughPolyStringNormalizer passThrough = new PassThroughPolyStringNormalizer();
+        PassThroughPolyStringNormalizer passThroughNoNfkd = new PassThroughPolyStringNormalizer();
+        passThroughNoNfkd.configure(noNfkd);
+
+        String[] alphabet = {
+                "a", "Z", "0", "9", "_", "-", ",", "!", ".",
+                " ", "\t", "\n", "\r", "\f", "\u000B",                             // ASCII whitespace
+                "\u00A0", "\u2003", "\u3000", "\u2028", "\u0085",                  // Unicode whitespace (not matched by \s)
+                "\u00F4", "\u010D", "\u017E", "\u013D", "\u00DF",                   // precomposed Latin letters
+                "\u0301", "\u030C", "\u0327",                                       // combining marks
+                "\u0421", "\u043E", "\u03A9",                                       // Cyrillic, Greek
+                "\uFB01", "\u2460", "\u00BD", "\uFF21", "\u2126",                   // compatibility characters
+                "\uD83D\uDE00", "\uD835\uDC00"                                      // surrogate pairs
+        };
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                sb.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String orig = sb.toString();
+            String escaped = unicodeEscape(orig);
+            assertEquals("Alphanumeric normalization differs for " + escaped,
+                    normalizeUsingRegex(orig, true, true), alphanumeric.normalize(orig));
+            assertEquals("Alphanumeric (no NFKD) normalization differs for " + escaped,
+                    normalizeUsingRegex(orig, false, true), alphanumericNoNfkd.normalize(orig));
+            assertEquals("Pass-through normalization differs for " + escaped,
+                    normalizeUsingRegex(orig, true, false), passThrough.normalize(orig));
+            assertEquals("Pass-through (no NFKD) normalization differs for " + escaped,
+                    normalizeUsingRegex(orig, false, false), passThroughNoNfkd.normalize(orig));
+        }
+    }
+
+    /**
+     * The original (regex-based) normalization algorithm.
+     */
+    private String normalizeUsingRegex(String orig, boolean nfkd, boolean alphanumeric) {
+        String s = StringUtils.trim(orig);
+        if (nfkd) {
+            s = Normalizer.normalize(s, Normalizer.Form.NFKD);
+        }
+        if (alphanumeric) {
+            s = Pattern.compile("[^\\w\\s\\d]").matcher(s).replaceAll("");
+        }
+        s = Pattern.compile("\\s+").matcher(s).replaceAll(" ");
+        if (StringUtils.isBlank(s)) {
+            return "";
+        }
+        return StringUtils.lowerCase(s);
+    }
+
     private void testNormalization(PolyStringNormalizer normalizer, String orig, String expectedNorm) {
         PolyString polyString = new PolyString(orig);
         polyString.recompute(normalizer);
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.prism;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.NS_FOO;
+import static com.evolveum.midpoint.prism.util.PrismTestUtil.getPrismContext;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.delta.ReferenceDelta;
+import com.evolveum.midpoint.prism.equivalence.EquivalenceStrategy;
+import com.evolveum.midpoint.prism.equivalence.ParameterizedEquivalenceStrategy;
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.impl.PrismReferenceValueImpl;
+import com.evolveum.midpoint.prism.impl.delta.ReferenceDeltaImpl;
+
+/**
+ * Bulk addition/removal of reference values (addAll, removeAll, delta application) uses an OID-based value index
+ * for items with 20 or more values. These tests check that the results are the same as when values are
+ * added or removed one by one, just below and above that threshold.
+ */
+public class TestReferenceBulkOperations extends AbstractPrismTest {
+
+    private static final QName RELATION_MANAGER = new QName(NS_FOO, "manager");
+    private static final int[] EXISTING_COUNTS = { 0, 19, 20, 21 };
+
+    @Test
+    public void test100AddAll() throws Exception {
+        final String TEST_NAME = "test100AddAll";
+        displayTestTitle(TEST_NAME);
+
+        for (ParameterizedEquivalenceStrategy strategy : Arrays.asList(EquivalenceStrategy.REAL_VALUE, EquivalenceStrategy.IGNORE_METADATA)) {
+            for (int existing : EXISTING_COUNTS) {
+                // GIVEN
+                PrismReference bulk = createReference(existing);
+                PrismReference oneByOne = createReference(existing);
+                List<PrismReferenceValue> valuesToAdd = Arrays.asList(
+                        ref("oid-1", null),                         // already present
+                        ref("oid-new1", null),
+                        ref("oid-new1", null),                      // duplicate OID within the batch
+                        ref("oid-2", RELATION_MANAGER),             // present OID, different relation
+                        ref("oid-new2", RELATION_MANAGER),
+                        ref("oid-new2", null),                      // the same new OID, different relation
+                        ref("oid-new2", RELATION_MANAGER));
+
+                // WHEN
+                boolean bulkChanged = bulk.addAll(cloneValues(valuesToAdd), strategy);
+                boolean oneByOneChanged = false;
+                for (PrismReferenceValue value : cloneValues(valuesToAdd)) {
+                    oneByOneChanged |= oneByOne.add(value, true, strategy);
+                }
+
+                // THEN
+                String context = "(existing: " + existing + ", strategy: " + strategy + ")";
+                assertEquals("Wrong 'changed' flag " + context, oneByOneChanged, bulkChanged);
+                assertSameValues(context, oneByOne, bulk);
+                // oid-1 is new only if not already present; the other values yield four distinct new values
+                assertEquals("Wrong # of values " + context, existing + (existing > 1 ? 4 : 5), bulk.size());
+            }
+        }
+    }
+
+    @Test
+    public void test110AddAllAlreadyPresent() throws Exception {
+        final String TEST_NAME = "test110AddAllAlreadyPresent";
+        displayTestTitle(TEST_NAME);
+
+        for (int existing : EXISTING_COUNTS) {
+            if (existing < 2) {
+                continue;
+            }
+            // GIVEN
+            PrismReference reference = createReference(existing);
+
+            // WHEN
+            boolean changed = reference.addAll(Arrays.asList(ref("oid-0", null), ref("oid-1", null), ref("oid-1", null)),
+                    EquivalenceStrategy.REAL_VALUE);
+
+            // THEN
+            assertEquals("Unexpected change (existing: " + existing + ")", false, changed);
+            assertSameValues("(existing: " + existing + ")", createReference(existing), reference);
+        }
+    }
+
+    @Test
+    public void test200RemoveAll() throws Exception {
+        final String TEST_NAME = "test200RemoveAll";
+        displayTestTitle(TEST_NAME);
+
+        for (int existing : EXISTING_COUNTS) {
+            // GIVEN
+            PrismReference bulk = createReferenceWithRelations(existing);
+            PrismReference oneByOne = createReferenceWithRelations(existing);
+            List<PrismReferenceValue> valuesToRemove = Arrays.asList(
+                    ref("oid-1", null),                             // present
+                    ref("oid-3", null),
+                    ref("oid-3", null),                             // duplicate
+                    ref("oid-4", RELATION_MANAGER),                 // OID present with both relations
+                    ref("oid-5", RELATION_MANAGER),                 // present OID, absent relation
+                    ref("oid-absent", null));                       // absent
+
+            // WHEN
+            boolean bulkChanged = bulk.removeAll(cloneValues(valuesToRemove));
+            boolean oneByOneChanged = false;
+            for (PrismReferenceValue value : cloneValues(valuesToRemove)) {
+                oneByOneChanged |= oneByOne.remove(value);
+            }
+
+            // THEN
+            String context = "(existing: " + existing + ")";
+            assertEquals("Wrong 'changed' flag " + context, oneByOneChanged, bulkChanged);
+            assertSameValues(context, oneByOne, bulk);
+        }
+    }
+
+    @Test
+    public void test210RemoveAllAbsent() throws Exception {
+        final String TEST_NAME = "test210RemoveAllAbsent";
+        displayTestTitle(TEST_NAME);
+
+        for (int existing : EXISTING_COUNTS) {
+            // GIVEN
+            PrismReference reference = createReferenceWithRelations(existing);
+
+            // WHEN
+            boolean changed = reference.removeAll(Arrays.asList(ref("oid-absent1", null), ref("oid-absent2", null),
+                    ref("oid-absent2", RELATION_MANAGER)));
+
+            // THEN
+            String context = "(existing: " + existing + ")";
+            assertEquals("Unexpected change " + context, false, changed);
+            assertSameValues(context, createReferenceWithRelations(existing), reference);
+        }
+    }
+
+    @Test
+    public void test300DeltaApplication() throws Exception {
+        final String TEST_NAME = "test300DeltaApplication";
+        displayTestTitle(TEST_NAME);
+
+        PrismReferenceDefinition definition = getUserTypeDefinition().findReferenceDefinition(UserType.F_ACCOUNT_REF);
+        for (int existing : EXISTING_COUNTS) {
+            // GIVEN
+            PrismObject<UserType> bulk = createUser(existing);
+            PrismObject<UserType> oneByOne = createUser(existing);
+            List<PrismReferenceValue> valuesToAdd = Arrays.asList(
+                    ref("oid-1", null),
+                    ref("oid-new1", null),
+                    ref("oid-new1", null),
+                    ref("oid-2", RELATION_MANAGER),
+                    ref("oid-new2", RELATION_MANAGER));
+            List<PrismReferenceValue> valuesToDelete = Arrays.asList(
+                    ref("oid-3", null),
+                    ref("oid-absent", null));
+
+            // WHEN
+            ReferenceDelta bulkDelta = new ReferenceDeltaImpl(definition, getPrismContext());
+            bulkDelta.addValuesToDelete(cloneValues(valuesToDelete));
+            bulkDelta.addValuesToAdd(cloneValues(valuesToAdd));
+            bulkDelta.applyTo(bulk);
+
+            for (PrismReferenceValue value : cloneValues(valuesToDelete)) {
+                ReferenceDelta delta = new ReferenceDeltaImpl(definition, getPrismContext());
+                delta.addValueToDelete(value);
+                delta.applyTo(oneByOne);
+            }
+            for (PrismReferenceValue value : cloneValues(valuesToAdd)) {
+                ReferenceDelta delta = new ReferenceDeltaImpl(definition, getPrismContext());
+                delta.addValueToAdd(value);
+                delta.applyTo(oneByOne);
+            }
+
+            // THEN
+            assertSameValues("(existing: " + existing + ")", oneByOne.findReference(UserType.F_ACCOUNT_REF),
+                    bulk.findReference(UserType.F_ACCOUNT_REF));
+        }
+    }
+
+    private PrismObject<UserType> createUser(int existing) throws Exception {
+        PrismObject<UserType> user = getUserTypeDefinition().instantiate();
+        PrismReference reference = user.findOrCreateReference(UserType.F_ACCOUNT_REF);
+        for (int i = 0; i < existing; i++) {
+            reference.add(ref("oid-" + i, null));
+        }
+        return user;
+    }
+
+    private PrismReference createReference(int existing) throws Exception {
+        return createUser(existing).findReference(UserType.F_ACCOUNT_REF);
+    }
+
+    // the same number of values as createReference, but oid-0 and oid-4 are present with both default and manager relation
+    private PrismReference createReferenceWithRelations(int existing) throws Exception {
+        if (existing < 2) {
+            return createReference(existing);
+        }
+        PrismReference reference = createReference(existing - 2);
+        reference.add(ref("oid-0", RELATION_MANAGER));
+        reference.add(ref("oid-4", RELATION_MANAGER));
+        return reference;
+    }
+
+    private PrismReferenceValue ref(String oid, QName relation) {
+        PrismReferenceValue value = new PrismReferenceValueImpl(oid);
+        value.setRelation(relation);
+        return value;
+    }
+
+    private List<PrismReferenceValue> cloneValues(List<PrismReferenceValue> values) {
+        List<PrismReferenceValue> clones = new ArrayList<>();
+        for (PrismReferenceValue value : values) {
+            clones.add(value.clone());
+        }
+        return clones;
+    }
+
+    private void assertSameValues(String context, PrismReference expected, PrismReference actual) {
+        assertEquals("Wrong values " + context, describe(expected), describe(actual));
+    }
+
+    private List<String> describe(PrismReference reference) {
+        List<String> rv = new ArrayList<>();
+        if (reference != null) {
+            for (PrismReferenceValue value : reference.getValues()) {
+                rv.add(value.getOid() + "/" + value.getRelation());
+            }
+        }
+        return rv;
+    }
+}
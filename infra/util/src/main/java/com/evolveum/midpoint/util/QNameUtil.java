@@ -211,19 +211,20 @@ public class QNameUtil {
 
     // case insensitive is related to local parts
     public static boolean match(QName a, QName b, boolean caseInsensitive) {
-        if (a == null && b == null) {
-            return true;
+        if (a == b) {
+            return true;        // covers also both being null; and the frequent case of comparing constants
         }
         if (a == null || b == null) {
             return false;
         }
         if (!caseInsensitive) {
-            // traditional comparison
-            if (StringUtils.isEmpty(a.getNamespaceURI()) || StringUtils.isEmpty(b.getNamespaceURI())) {
-                return a.getLocalPart().equals(b.getLocalPart());
-            } else {
-                return a.equals(b);
+            // traditional comparison; local parts are checked first as they differ more often than namespaces
+            if (!a.getLocalPart().equals(b.getLocalPart())) {
+                return false;
             }
+            String namespaceA = a.getNamespaceURI();
+            String namespaceB = b.getNamespaceURI();
+            return StringUtils.isEmpty(namespaceA) || StringUtils.isEmpty(namespaceB) || namespaceA.equals(namespaceB);
         } else {
             // relaxed (case-insensitive) one
             if (!a.getLocalPart().equalsIgnoreCase(b.getLocalPart())) {
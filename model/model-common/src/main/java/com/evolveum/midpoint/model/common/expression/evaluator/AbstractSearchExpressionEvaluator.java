@@ -25,6 +25,7 @@ import org.apache.commons.lang.BooleanUtils;
 
 import com.evolveum.midpoint.model.api.ModelService;
 import com.evolveum.midpoint.model.common.expression.evaluator.caching.AbstractSearchExpressionEvaluatorCache;
+import com.evolveum.midpoint.model.common.expression.evaluator.caching.QueryKey;
 import com.evolveum.midpoint.model.common.util.PopulatorUtil;
 import com.evolveum.midpoint.prism.crypto.Protector;
 import com.evolveum.midpoint.prism.delta.ItemDelta;
@@ -238,8 +239,10 @@ public abstract class AbstractSearchExpressionEvaluator<V extends PrismValue,D e
             return executeSearch(null, targetTypeClass, targetTypeQName, query, searchStrategy, additionalAttributeDeltas, params, contextDescription, task, result);
         }
 
+        // The key is created only once, as it requires the query to be serialized.
+        QueryKey queryKey = cache.createQueryKey(targetTypeClass, query, searchStrategy, params, prismContext);
         //noinspection unchecked
-        List<V> list = cache.getQueryResult(targetTypeClass, query, searchStrategy, params, prismContext);
+        List<V> list = cache.getQueryResult(queryKey);
         if (list != null) {
             cache.registerHit();
             collector.registerHit(cacheClass, targetTypeClass, statisticsLevel);
@@ -254,7 +257,7 @@ public abstract class AbstractSearchExpressionEvaluator<V extends PrismValue,D e
         if (list != null && !list.isEmpty()) {
             // we don't want to cache negative results (e.g. if used with focal objects it might mean that they would be attempted to create multiple times)
             //noinspection unchecked
-            cache.putQueryResult(targetTypeClass, query, searchStrategy, params, list, rawResult, prismContext);
+            cache.putQueryResult(queryKey, list, rawResult);
         }
         return list;
     }
@@ -58,8 +58,11 @@ public abstract class AbstractSearchExpressionEvaluatorCache<V extends PrismValu
     // Also probably because of MID-5355, although it's a bit unclear.
     Map<QK, QR> queries = new ConcurrentHashMap<>();
 
-    public List<V> getQueryResult(Class<? extends ObjectType> type, ObjectQuery query, ObjectSearchStrategyType searchStrategy, ExpressionEvaluationContext params, PrismContext prismContext) {
-        QK queryKey = createQueryKey(type, query, searchStrategy, params, prismContext);
+    /**
+     * Looks up the result using pre-computed query key. Creating the key involves query serialization,
+     * so callers doing get-then-put should create the key only once (see {@link #createQueryKey}).
+     */
+    public List<V> getQueryResult(QK queryKey) {
         if (queryKey != null) {         // TODO BRUTAL HACK
             QR result = queries.get(queryKey);
             if (result != null) {
@@ -69,18 +72,18 @@ public abstract class AbstractSearchExpressionEvaluatorCache<V extends PrismValu
         return null;
     }
 
-    public <T extends ObjectType> void putQueryResult(Class<T> type, ObjectQuery query, ObjectSearchStrategyType searchStrategy,
-                                                      ExpressionEvaluationContext params, List<V> resultList, List<RV> rawResultList,
-                                                      PrismContext prismContext) {
-        QK queryKey = createQueryKey(type, query, searchStrategy, params, prismContext);
+    public void putQueryResult(QK queryKey, List<V> resultList, List<RV> rawResultList) {
         if (queryKey != null) {     // TODO BRUTAL HACK
             QR queryResult = createQueryResult(resultList, rawResultList);
             queries.put(queryKey, queryResult);
         }
     }
 
-    abstract protected QK createQueryKey(Class<? extends ObjectType> type, ObjectQuery query, ObjectSearchStrategyType searchStrategy,
-                                         ExpressionEvaluationContext params, PrismContext prismContext);
+    /**
+     * @return Query key or null if the key cannot be created (the query is then not cacheable).
+     */
+    public abstract QK createQueryKey(Class<? extends ObjectType> type, ObjectQuery query, ObjectSearchStrategyType searchStrategy,
+                                      ExpressionEvaluationContext params, PrismContext prismContext);
 
     protected abstract QR createQueryResult(List<V> resultList, List<RV> rawResultList);
 
@@ -6,12 +6,13 @@
  */
 package com.evolveum.midpoint.model.impl.lens;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
 
 import com.evolveum.midpoint.prism.*;
@@ -241,8 +242,10 @@ public class IvwoConsolidator<V extends PrismValue, D extends ItemDefinition, I
 
             PrismValueDeltaSetTripleProducer<V, D> exclusiveMapping = null;
             Collection<ItemValueWithOrigin<V,D>> pvwosToAdd;
-            if (addUnchangedValues) {
+            if (addUnchangedValues && !zeroIvwos.isEmpty() && !plusIvwos.isEmpty()) {
                 pvwosToAdd = MiscUtil.union(zeroIvwos, plusIvwos);
+            } else if (addUnchangedValues && plusIvwos.isEmpty()) {
+                pvwosToAdd = zeroIvwos;
             } else {
                 pvwosToAdd = plusIvwos;
             }
@@ -407,7 +410,8 @@ public class IvwoConsolidator<V extends PrismValue, D extends ItemDefinition, I
     }
 
     private Collection<V> collectAllValues() throws SchemaException {
-        Collection<V> allValues = new HashSet<>();
+        // Uniqueness is checked by (real) value comparison anyway, so hashing the values would be only an overhead.
+        Collection<V> allValues = new ArrayList<>();
         collectAllValuesFromSet(allValues, ivwoTriple.getZeroSet());
         collectAllValuesFromSet(allValues, ivwoTriple.getPlusSet());
         collectAllValuesFromSet(allValues, ivwoTriple.getMinusSet());
@@ -441,8 +445,9 @@ public class IvwoConsolidator<V extends PrismValue, D extends ItemDefinition, I
         }
     }
 
+    // Called for each value and each set, so the list is created only if there is something to put in.
     private Collection<ItemValueWithOrigin<V,D>> collectIvwosFromSet(V pvalue, Collection<? extends ItemValueWithOrigin<V,D>> deltaSet, boolean keepValidInvalid) throws SchemaException {
-        Collection<ItemValueWithOrigin<V,D>> ivwos = new ArrayList<>();
+        Collection<ItemValueWithOrigin<V,D>> ivwos = null;
         for (ItemValueWithOrigin<V,D> setIvwo : deltaSet) {
             if (!shouldProcessMapping(setIvwo.getMapping().getStrength())) {
                 continue;
@@ -457,10 +462,13 @@ public class IvwoConsolidator<V extends PrismValue, D extends ItemDefinition, I
                 // valid -> invalid change. E.g. disabled assignment. We need to process that
             }
             if (setIvwo.equalsRealValue(pvalue, valueMatcher)) {
+                if (ivwos == null) {
+                    ivwos = new ArrayList<>();
+                }
                 ivwos.add(setIvwo);
             }
         }
-        return ivwos;
+        return ivwos != null ? ivwos : emptyList();
     }
 
     private boolean shouldProcessMapping(MappingStrengthType mappingStrength) {
@@ -496,6 +504,9 @@ public class IvwoConsolidator<V extends PrismValue, D extends ItemDefinition, I
         } else {
             if (itemDelta == null || itemDelta.isEmpty()) {
                 return true;
+            } else if (itemDelta.addsAnyValue() && !itemDelta.isReplace() && isEmpty(itemDelta.getValuesToDelete())) {
+                // Only adding some values always results in non-empty item; no need to clone it.
+                return true;
             } else {
                 Item<V,D> clonedItem = item.clone();
                 itemDelta.applyToMatchingPath(clonedItem, ParameterizedEquivalenceStrategy.DEFAULT_FOR_DELTA_APPLICATION);
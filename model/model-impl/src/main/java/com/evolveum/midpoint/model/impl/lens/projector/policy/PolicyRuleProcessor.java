@@ -44,7 +44,10 @@ import javax.xml.namespace.QName;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static com.evolveum.midpoint.schema.util.PolicyRuleTypeUtil.toConstraintsList;
@@ -93,8 +96,9 @@ public class PolicyRuleProcessor {
             Task task, OperationResult result)
             throws PolicyViolationException, SchemaException, ExpressionEvaluationException, ObjectNotFoundException, CommunicationException, ConfigurationException, SecurityViolationException {
 
+        Map<String, Integer> assigneeCounts = new HashMap<>();
         for (EvaluatedAssignmentImpl<F> evaluatedAssignment : evaluatedAssignmentTriple.union()) {
-            RulesEvaluationContext globalCtx = new RulesEvaluationContext();
+            RulesEvaluationContext globalCtx = new RulesEvaluationContext(assigneeCounts);
 
             boolean inPlus = evaluatedAssignmentTriple.presentInPlusSet(evaluatedAssignment);
             boolean inMinus = evaluatedAssignmentTriple.presentInMinusSet(evaluatedAssignment);
@@ -572,6 +576,11 @@ public class PolicyRuleProcessor {
 
         List<GlobalPolicyRuleType> globalPolicyRuleList = systemConfiguration.asObjectable().getGlobalPolicyRule();
         LOGGER.trace("Checking {} global policy rules for selection to assignments", globalPolicyRuleList.size());
+        if (globalPolicyRuleList.isEmpty()) {
+            return;
+        }
+        // Targets to which global rules can be attached do not depend on the rule, so let's determine them only once.
+        Map<EvaluatedAssignmentImpl<F>, List<EvaluatedAssignmentTargetImpl>> relevantTargets = getTargetsRelevantForGlobalRules(evaluatedAssignmentTriple);
         int globalRulesInstantiated = 0;
         for (GlobalPolicyRuleType globalPolicyRule: globalPolicyRuleList) {
             ObjectSelectorType focusSelector = globalPolicyRule.getFocusSelector();
@@ -580,15 +589,9 @@ public class PolicyRuleProcessor {
                 LOGGER.trace("Skipping global policy rule {} because focus selector did not match: {}", globalPolicyRule.getName(), globalPolicyRule);
                 continue;
             }
-            for (EvaluatedAssignmentImpl<F> evaluatedAssignment : evaluatedAssignmentTriple.getAllValues()) {
-                for (EvaluatedAssignmentTargetImpl target : evaluatedAssignment.getRoles().getNonNegativeValues()) {
-                    if (!target.getAssignmentPath().last().isMatchingOrder() && !target.isDirectlyAssigned()) {
-                        // This is to be thought out well. It is of no use to include global policy rules
-                        // attached to meta-roles assigned to the role being assigned to the focus. But we certainly need to include rules
-                        // attached to all directly assigned roles (because they might be considered for assignment) as
-                        // well as all indirectly assigned roles but of the matching order (because of exclusion violation).
-                        continue;
-                    }
+            for (Map.Entry<EvaluatedAssignmentImpl<F>, List<EvaluatedAssignmentTargetImpl>> entry : relevantTargets.entrySet()) {
+                EvaluatedAssignmentImpl<F> evaluatedAssignment = entry.getKey();
+                for (EvaluatedAssignmentTargetImpl target : entry.getValue()) {
                     if (!repositoryService.selectorMatches(globalPolicyRule.getTargetSelector(),
                             target.getTarget(), null, LOGGER, "Global policy rule "+globalPolicyRule.getName()+" target selector: ")) {
                         LOGGER.trace("Skipping global policy rule {} because target selector did not match: {}", globalPolicyRule.getName(), globalPolicyRule);
@@ -612,6 +615,26 @@ public class PolicyRuleProcessor {
         LOGGER.trace("Global policy rules instantiated {} times for further evaluation", globalRulesInstantiated);
     }
 
+    private <F extends AssignmentHolderType> Map<EvaluatedAssignmentImpl<F>, List<EvaluatedAssignmentTargetImpl>> getTargetsRelevantForGlobalRules(
+            DeltaSetTriple<EvaluatedAssignmentImpl<F>> evaluatedAssignmentTriple) {
+        Map<EvaluatedAssignmentImpl<F>, List<EvaluatedAssignmentTargetImpl>> rv = new LinkedHashMap<>();
+        for (EvaluatedAssignmentImpl<F> evaluatedAssignment : evaluatedAssignmentTriple.getAllValues()) {
+            List<EvaluatedAssignmentTargetImpl> targets = new ArrayList<>();
+            for (EvaluatedAssignmentTargetImpl target : evaluatedAssignment.getRoles().getNonNegativeValues()) {
+                if (!target.getAssignmentPath().last().isMatchingOrder() && !target.isDirectlyAssigned()) {
+                    // This is to be thought out well. It is of no use to include global policy rules
+                    // attached to meta-roles assigned to the role being assigned to the focus. But we certainly need to include rules
+                    // attached to all directly assigned roles (because they might be considered for assignment) as
+                    // well as all indirectly assigned roles but of the matching order (because of exclusion violation).
+                    continue;
+                }
+                targets.add(target);
+            }
+            rv.put(evaluatedAssignment, targets);
+        }
+        return rv;
+    }
+
     private <AH extends AssignmentHolderType> boolean isRuleConditionTrue(GlobalPolicyRuleType globalPolicyRule, PrismObject<AH> focus,
             EvaluatedAssignmentImpl<AH> evaluatedAssignment, LensContext<AH> context, Task task, OperationResult result)
             throws ExpressionEvaluationException, ObjectNotFoundException, SchemaException, SecurityViolationException, ConfigurationException, CommunicationException {
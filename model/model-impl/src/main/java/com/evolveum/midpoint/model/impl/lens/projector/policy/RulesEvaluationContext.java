@@ -11,7 +11,9 @@ import com.evolveum.midpoint.model.api.context.EvaluatedPolicyRule;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author mederly
@@ -19,4 +21,23 @@ import java.util.List;
 public class RulesEvaluationContext {
 
     @NotNull final List<EvaluatedPolicyRule> rulesToRecord = new ArrayList<>();         // not private because it's final
+
+    /**
+     * Numbers of assignees determined by min/max assignees constraints. These require repository calls and many rules
+     * can refer to the same target, so they are remembered. Can be shared among contexts within one evaluation.
+     */
+    @NotNull private final Map<String, Integer> assigneeCounts;
+
+    public RulesEvaluationContext() {
+        this(new HashMap<>());
+    }
+
+    RulesEvaluationContext(@NotNull Map<String, Integer> assigneeCounts) {
+        this.assigneeCounts = assigneeCounts;
+    }
+
+    @NotNull
+    public Map<String, Integer> getAssigneeCounts() {
+        return assigneeCounts;
+    }
 }
@@ -108,7 +108,6 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
         if (!isMin && !isMax) {
             throw new AssertionError("!isMin and !isMax");
         }
-        // TODO cache repository call results
         if (isMin) {
             Integer requiredMultiplicity = XsdTypeMapper.multiplicityToInteger(constraint.getValue().getMultiplicity());
             if (requiredMultiplicity == null) {
@@ -118,7 +117,7 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
                 return null;            // unbounded or 0
             }
             for (QName relationToCheck : relationsToCheck) {
-                int currentAssignees = getNumberOfAssigneesExceptMyself(targetRole, null, relationToCheck, result);
+                int currentAssignees = getNumberOfAssigneesExceptMyself(targetRole, null, relationToCheck, ctx, result);
                 if (currentAssignees < requiredMultiplicity) {
                     return new EvaluatedMultiplicityTrigger(PolicyConstraintKindType.MIN_ASSIGNEES_VIOLATION,
                             constraint.getValue(),
@@ -138,7 +137,7 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
                 return null;            // unbounded
             }
             for (QName relationToCheck : relationsToCheck) {
-                int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, null, relationToCheck, result);
+                int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, null, relationToCheck, ctx, result);
                 if (currentAssigneesExceptMyself >= requiredMultiplicity) {
                     return new EvaluatedMultiplicityTrigger(PolicyConstraintKindType.MAX_ASSIGNEES_VIOLATION,
                             constraint.getValue(),
@@ -188,14 +187,13 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
         if (!isMin && !isMax) {
             throw new AssertionError("!isMin and !isMax");
         }
-        // TODO cache repository call results
         if (isMin) {
             Integer requiredMultiplicity = XsdTypeMapper.multiplicityToInteger(constraint.getValue().getMultiplicity());
             if (requiredMultiplicity <= 0) {
                 return null;            // unbounded or 0
             }
             // Complain only if the situation is getting worse
-            int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, focusOid, relation, result);
+            int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, focusOid, relation, ctx, result);
             if (currentAssigneesExceptMyself < requiredMultiplicity && plusMinus == PlusMinusZero.MINUS) {
                 return new EvaluatedMultiplicityTrigger(PolicyConstraintKindType.MIN_ASSIGNEES_VIOLATION,
                         constraint.getValue(),
@@ -212,7 +210,7 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
                 return null;            // unbounded
             }
             // Complain only if the situation is getting worse
-            int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, focusOid, relation, result);
+            int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, focusOid, relation, ctx, result);
             if (currentAssigneesExceptMyself >= requiredMultiplicity && plusMinus == PLUS) {
                 return new EvaluatedMultiplicityTrigger(PolicyConstraintKindType.MAX_ASSIGNEES_VIOLATION,
                         constraint.getValue(),
@@ -237,13 +235,25 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
     }
 
     /**
-     * Returns numbers of assignees with the given relation name.
+     * Returns numbers of assignees with the given relation name. The values are remembered in the rules evaluation context.
      */
-    private int getNumberOfAssigneesExceptMyself(AbstractRoleType target, String selfOid, QName relation, OperationResult result)
-            throws SchemaException {
+    private int getNumberOfAssigneesExceptMyself(AbstractRoleType target, String selfOid, QName relation,
+            PolicyRuleEvaluationContext<?> ctx, OperationResult result) throws SchemaException {
         if (target.getOid() == null) {
             return 0;
         }
+        String key = target.getOid() + "|" + selfOid + "|" + QNameUtil.qNameToUri(relation);
+        Integer cached = ctx.globalCtx.getAssigneeCounts().get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int count = countAssigneesExceptMyself(target, selfOid, relation, result);
+        ctx.globalCtx.getAssigneeCounts().put(key, count);
+        return count;
+    }
+
+    private int countAssigneesExceptMyself(AbstractRoleType target, String selfOid, QName relation, OperationResult result)
+            throws SchemaException {
         S_AtomicFilterExit q = prismContext.queryFor(FocusType.class)
                 .item(FocusType.F_ASSIGNMENT, AssignmentType.F_TARGET_REF).ref(
                         prismContext.itemFactory().createReferenceValue(target.getOid()).relation(relation));
@@ -6,8 +6,28 @@
  */
 package com.evolveum.midpoint.model.impl.sync;
 
+import static com.evolveum.midpoint.prism.PrismProperty.getRealValue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 import javax.annotation.PostConstruct;
 
+import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.task.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,13 +55,24 @@ import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
 import com.evolveum.midpoint.util.exception.PolicyViolationException;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.exception.SecurityViolationException;
+import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractRoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ActivationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ExecutionModeType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.FunctionLibraryType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectTemplateType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SecurityPolicyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SystemConfigurationType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskPartitionDefinitionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ValuePolicyType;
 
 /**
  * The task hander for user recompute.
@@ -50,6 +81,21 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
  *  and recompute their assignments and expressions. This is needed after the expressions are changed,
  *  e.g in resource outbound expressions or in a role definition.
  *
+ *  If skipUnchangedObjects extension property is set (and reconciliation is not requested), objects whose inputs
+ *  did not change since their last successful recompute by the same task are skipped. The inputs are: own version,
+ *  versions of objects referenced by assignments, roleMembershipRef, archetypeRef, parentOrgRef and delegatedRef,
+ *  transitively including the targets of their assignments, inducements and archetypeRefs (i.e. meta-roles,
+ *  induced roles and parent orgs), and versions of all resources, object templates, system configuration,
+ *  security policies, value policies and function libraries. If any of the referenced objects cannot be read,
+ *  the object is not skipped. Objects with triggers or validity constraints are never skipped either.
+ *  Everything else is ignored, most notably: the state of resource objects and shadows, objects looked up
+ *  by expressions (e.g. assignment target searches, lookup tables), connectors, and the current time as used
+ *  by mappings that do not create triggers.
+ *
+ *  Fingerprints are SHA-256 digests kept in memory of this node only (bounded per task). So whether an object
+ *  is skipped depends on the node that runs the task: a node that has no fingerprints for the task (e.g. because
+ *  it has not run the task yet, or it was restarted) recomputes all objects. This is logged when it happens.
+ *
  * @author Radovan Semancik
  *
  */
@@ -65,6 +111,32 @@ public class RecomputeTaskHandler extends AbstractSearchIterativeModelTaskHandle
 
     private static final Trace LOGGER = TraceManager.getTrace(RecomputeTaskHandler.class);
 
+    private static final String OP_GET_REFERENCED_OBJECT = RecomputeTaskHandler.class.getName() + ".getReferencedObject";
+
+    /**
+     * Maximum number of objects whose fingerprints are remembered for a single task. Beyond that, the objects
+     * that were recomputed least recently are forgotten, so they are recomputed again in the next run.
+     */
+    private static final int MAX_FINGERPRINTS_PER_TASK = 100_000;
+
+    /**
+     * Maximum number of tasks whose fingerprints are remembered on this node. Other tasks skip nothing.
+     */
+    private static final int MAX_TASKS_WITH_FINGERPRINTS = 10;
+
+    /**
+     * Maximum number of referenced objects (roles, orgs, meta-roles, ...) considered for a single object.
+     * Objects that reference more are not skipped.
+     */
+    private static final int MAX_REFERENCED_OBJECTS = 1000;
+
+    /**
+     * Task OID -> fingerprints of the inputs of objects at the time of their last successful recompute by that task.
+     * Only populated for tasks with skipUnchangedObjects set. Entries are removed when the task is deleted,
+     * when it finishes and is not recurring, and when it runs without skipUnchangedObjects.
+     */
+    private final Map<String, TaskFingerprints> fingerprints = new ConcurrentHashMap<>();
+
     public RecomputeTaskHandler() {
         super("Recompute", OperationConstants.RECOMPUTE);
         setLogFinishInfo(true);
@@ -74,6 +146,7 @@ public class RecomputeTaskHandler extends AbstractSearchIterativeModelTaskHandle
     @PostConstruct
     private void initialize() {
         taskManager.registerHandler(HANDLER_URI, this);
+        taskManager.registerTaskDeletionListener((task, result) -> forgetFingerprints(task));
     }
 
     protected Class<? extends ObjectType> getType(Task task) {
@@ -84,12 +157,37 @@ public class RecomputeTaskHandler extends AbstractSearchIterativeModelTaskHandle
     protected AbstractSearchIterativeResultHandler<FocusType> createHandler(TaskPartitionDefinitionType partition, TaskRunResult runResult, final RunningTask coordinatorTask,
             OperationResult opResult) {
 
+        TaskFingerprints taskFingerprints = getTaskFingerprints(coordinatorTask, partition);
+        String configurationFingerprint = taskFingerprints != null ?
+                taskFingerprints.getConfigurationFingerprint(coordinatorTask.getLastRunStartTimestamp(),
+                        () -> computeConfigurationFingerprint(opResult)) : null;
+        // Roles, orgs, archetypes and delegators; shared by all objects processed by this handler.
+        Map<String, ReferencedObject> referencedObjects = new ConcurrentHashMap<>();
+
         AbstractSearchIterativeResultHandler<FocusType> handler = new AbstractSearchIterativeResultHandler<FocusType>(
                 coordinatorTask, RecomputeTaskHandler.class.getName(), "recompute", "recompute task", partition, taskManager) {
 
             @Override
             protected boolean handleObject(PrismObject<FocusType> object, RunningTask workerTask, OperationResult result) throws CommonException, PreconditionViolationException {
+                if (taskFingerprints == null || isTimeDependent(object)) {
+                    recompute(object, getOptions(coordinatorTask), workerTask, partition, result);
+                    return true;
+                }
+                String fingerprint = computeFingerprint(object, configurationFingerprint, referencedObjects, result);
+                if (fingerprint != null && fingerprint.equals(taskFingerprints.get(object.getOid()))) {
+                    LOGGER.trace("Skipping recompute of {} because its inputs did not change since last recompute", object);
+                    taskFingerprints.recordSkipped();
+                    result.recordNotApplicableIfUnknown();
+                    return true;
+                }
+                taskFingerprints.remove(object.getOid());
                 recompute(object, getOptions(coordinatorTask), workerTask, partition, result);
+                result.computeStatusIfUnknown();
+                if (fingerprint != null && result.isSuccess()) {
+                    // If the recompute changed the object, the fingerprint will not match next time. So the object is
+                    // recomputed once more, and only then it gets skipped. This is the price for not re-reading it here.
+                    taskFingerprints.put(object.getOid(), fingerprint);
+                }
                 return true;
             }
 
@@ -98,6 +196,228 @@ public class RecomputeTaskHandler extends AbstractSearchIterativeModelTaskHandle
         return handler;
     }
 
+    @Override
+    protected void finish(AbstractSearchIterativeResultHandler<FocusType> handler, TaskRunResult runResult, RunningTask task,
+            OperationResult opResult) throws SchemaException {
+        super.finish(handler, runResult, task, opResult);
+        TaskFingerprints taskFingerprints = task.getOid() != null ? fingerprints.get(task.getOid()) : null;
+        if (taskFingerprints != null) {
+            LOGGER.info("{} objects were skipped in {} because their inputs did not change since last recompute",
+                    taskFingerprints.getAndResetSkipped(), task);
+        }
+        if (!task.isRecurring()) {
+            forgetFingerprints(task);
+        }
+    }
+
+    private void forgetFingerprints(Task task) {
+        if (task.getOid() != null && fingerprints.remove(task.getOid()) != null) {
+            LOGGER.trace("Forgot fingerprints of objects recomputed by {}", task);
+        }
+    }
+
+    private TaskFingerprints getTaskFingerprints(Task coordinatorTask, TaskPartitionDefinitionType partition) {
+        if (coordinatorTask.getOid() == null) {
+            return null;
+        }
+        if (!isSkipUnchangedObjects(coordinatorTask, partition)) {
+            forgetFingerprints(coordinatorTask);
+            return null;
+        }
+        TaskFingerprints existing = fingerprints.get(coordinatorTask.getOid());
+        if (existing != null) {
+            return existing;
+        }
+        if (fingerprints.size() >= MAX_TASKS_WITH_FINGERPRINTS) {
+            LOGGER.warn("Fingerprints are already kept for {} tasks, unchanged objects will not be skipped in {}",
+                    fingerprints.size(), coordinatorTask);
+            return null;
+        }
+        LOGGER.info("There are no fingerprints of objects recomputed by {} on this node (it has not run the task yet "
+                + "or it was restarted). All objects will be recomputed in this run.", coordinatorTask);
+        return fingerprints.computeIfAbsent(coordinatorTask.getOid(), k -> new TaskFingerprints());
+    }
+
+    private boolean isSkipUnchangedObjects(Task coordinatorTask, TaskPartitionDefinitionType partition) {
+        if (partition != null && ExecutionModeType.SIMULATE == partition.getStage()) {
+            return false;
+        }
+        Boolean skipUnchanged = getRealValue(coordinatorTask.getExtensionPropertyOrClone(SchemaConstants.MODEL_EXTENSION_SKIP_UNCHANGED_OBJECTS));
+        if (!Boolean.TRUE.equals(skipUnchanged)) {
+            return false;
+        }
+        ModelExecuteOptions options;
+        try {
+            options = getOptions(coordinatorTask);
+        } catch (SchemaException e) {
+            LOGGER.warn("Couldn't get model execute options of {}, unchanged objects will not be skipped: {}",
+                    coordinatorTask, e.getMessage(), e);
+            return false;
+        }
+        if (ModelExecuteOptions.isReconcile(options)) {
+            // Reconciliation looks at the resource objects, which are not part of the fingerprint.
+            LOGGER.debug("Unchanged objects will not be skipped in {} because reconciliation is requested", coordinatorTask);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Objects with triggers or with validity constraints (on the object itself, on its assignments or inducements)
+     * depend on the current time. Their fingerprint would not reflect that, so they are never skipped.
+     */
+    private boolean isTimeDependent(PrismObject<FocusType> object) {
+        FocusType focus = object.asObjectable();
+        if (!focus.getTrigger().isEmpty() || hasValidityConstraints(focus.getActivation())) {
+            return true;
+        }
+        for (AssignmentType assignment : focus.getAssignment()) {
+            if (hasValidityConstraints(assignment.getActivation())) {
+                return true;
+            }
+        }
+        if (focus instanceof AbstractRoleType) {
+            for (AssignmentType inducement : ((AbstractRoleType) focus).getInducement()) {
+                if (hasValidityConstraints(inducement.getActivation())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasValidityConstraints(ActivationType activation) {
+        return activation != null && (activation.getValidFrom() != null || activation.getValidTo() != null);
+    }
+
+    /**
+     * Versions of objects that can influence the result of any recompute. Computed once per task run, as there are
+     * typically not many of them. The search is read-only, so the types that are globally cached (resources, templates,
+     * system configuration by default) are served from the global repository cache.
+     */
+    private String computeConfigurationFingerprint(OperationResult result) {
+        StringBuilder sb = new StringBuilder();
+        appendVersions(sb, ResourceType.class, result);
+        appendVersions(sb, ObjectTemplateType.class, result);
+        appendVersions(sb, SystemConfigurationType.class, result);
+        appendVersions(sb, SecurityPolicyType.class, result);
+        appendVersions(sb, ValuePolicyType.class, result);
+        appendVersions(sb, FunctionLibraryType.class, result);
+        return sb.toString();
+    }
+
+    private <O extends ObjectType> void appendVersions(StringBuilder sb, Class<O> type, OperationResult result) {
+        try {
+            List<String> versions = new ArrayList<>();
+            for (PrismObject<O> object : repositoryService.searchObjects(type, null,
+                    GetOperationOptions.createReadOnlyCollection(), result)) {
+                versions.add(object.getOid() + ":" + object.getVersion());
+            }
+            Collections.sort(versions);
+            versions.forEach(v -> sb.append(v).append(';'));
+        } catch (SchemaException e) {
+            // This makes the fingerprint unique, so nothing would be skipped in this run.
+            LOGGER.warn("Couldn't determine versions of {} objects, unchanged objects will not be skipped: {}",
+                    type.getSimpleName(), e.getMessage(), e);
+            sb.append(System.nanoTime());
+        }
+        sb.append('|');
+    }
+
+    /**
+     * @return Fingerprint of the object inputs, or null if it cannot be determined (the object must not be skipped then).
+     */
+    private String computeFingerprint(PrismObject<FocusType> object, String configurationFingerprint,
+            Map<String, ReferencedObject> referencedObjects, OperationResult result) {
+        FocusType focus = object.asObjectable();
+        StringBuilder sb = new StringBuilder(configurationFingerprint);
+        sb.append(object.getVersion()).append('|');
+        Deque<String> toVisit = new ArrayDeque<>();
+        addAssignmentTargets(toVisit, focus.getAssignment());
+        addOids(toVisit, focus.getRoleMembershipRef());
+        addOids(toVisit, focus.getArchetypeRef());
+        addOids(toVisit, focus.getParentOrgRef());
+        addOids(toVisit, focus.getDelegatedRef());
+        List<String> versions = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        while (!toVisit.isEmpty()) {
+            String oid = toVisit.poll();
+            if (!visited.add(oid)) {
+                continue;
+            }
+            if (visited.size() > MAX_REFERENCED_OBJECTS) {
+                LOGGER.trace("{} references more than {} objects, it will not be skipped", object, MAX_REFERENCED_OBJECTS);
+                return null;
+            }
+            ReferencedObject referencedObject = getReferencedObject(oid, referencedObjects, result);
+            if (referencedObject == null) {
+                return null;
+            }
+            versions.add(oid + ":" + referencedObject.version);
+            toVisit.addAll(referencedObject.targetOids);
+        }
+        Collections.sort(versions);
+        versions.forEach(v -> sb.append(v).append(';'));
+        return sha256(sb);
+    }
+
+    /**
+     * Gets the referenced object from the handler-wide map or reads it from the repository. The reading is done outside
+     * of the map operations, so that no lock is held during I/O. Two workers may occasionally read the same object;
+     * this is harmless.
+     *
+     * @return null if the object cannot be read (e.g. because it was deleted)
+     */
+    private ReferencedObject getReferencedObject(String oid, Map<String, ReferencedObject> referencedObjects,
+            OperationResult parentResult) {
+        ReferencedObject cached = referencedObjects.get(oid);
+        if (cached != null) {
+            return cached;
+        }
+        OperationResult result = parentResult.createMinorSubresult(OP_GET_REFERENCED_OBJECT);
+        try {
+            PrismObject<FocusType> object = repositoryService.getObject(FocusType.class, oid,
+                    GetOperationOptions.createReadOnlyCollection(), result);
+            ReferencedObject referencedObject = new ReferencedObject(object);
+            ReferencedObject existing = referencedObjects.putIfAbsent(oid, referencedObject);
+            result.recordSuccess();
+            return existing != null ? existing : referencedObject;
+        } catch (ObjectNotFoundException | SchemaException e) {
+            LOGGER.trace("Couldn't get referenced object {}, the referencing object will not be skipped: {}", oid, e.getMessage());
+            result.recordFatalError(e);
+            // The referencing object is simply recomputed, so this is not an error of the recompute itself.
+            parentResult.deleteLastSubresultIfError();
+            return null;
+        }
+    }
+
+    private static void addAssignmentTargets(Deque<String> toVisit, List<AssignmentType> assignments) {
+        for (AssignmentType assignment : assignments) {
+            if (assignment.getTargetRef() != null) {
+                addOid(toVisit, assignment.getTargetRef());
+            }
+        }
+    }
+
+    private static void addOids(Deque<String> toVisit, List<ObjectReferenceType> refs) {
+        refs.forEach(ref -> addOid(toVisit, ref));
+    }
+
+    private static void addOid(Deque<String> toVisit, ObjectReferenceType ref) {
+        if (ref.getOid() != null) {
+            toVisit.add(ref.getOid());
+        }
+    }
+
+    private static String sha256(CharSequence s) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(s.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new SystemException("SHA-256 is not available: " + e.getMessage(), e);
+        }
+    }
+
     private ModelExecuteOptions getOptions(Task coordinatorTask) throws SchemaException {
         ModelExecuteOptions modelExecuteOptions = ModelImplUtils.getModelExecuteOptions(coordinatorTask);
         if (modelExecuteOptions == null) {
@@ -136,4 +456,75 @@ public class RecomputeTaskHandler extends AbstractSearchIterativeModelTaskHandle
     protected String getDefaultChannel() {
         return SchemaConstants.CHANGE_CHANNEL_RECOMPUTE_URI;
     }
+
+    /**
+     * Fingerprints kept for a single task. Least recently used entries are evicted when the limit is reached.
+     */
+    private static class TaskFingerprints {
+
+        private final Map<String, String> objectFingerprints = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MAX_FINGERPRINTS_PER_TASK;
+            }
+        };
+
+        private final AtomicInteger skipped = new AtomicInteger();
+
+        private Long configurationRunStart;
+        private String configurationFingerprint;
+
+        private synchronized String get(String oid) {
+            return objectFingerprints.get(oid);
+        }
+
+        private synchronized void put(String oid, String fingerprint) {
+            objectFingerprints.put(oid, fingerprint);
+        }
+
+        private synchronized void remove(String oid) {
+            objectFingerprints.remove(oid);
+        }
+
+        private void recordSkipped() {
+            skipped.incrementAndGet();
+        }
+
+        private int getAndResetSkipped() {
+            return skipped.getAndSet(0);
+        }
+
+        /**
+         * Configuration fingerprint is shared by all handlers (work buckets) of the same task run.
+         */
+        private synchronized String getConfigurationFingerprint(Long runStart, Supplier<String> supplier) {
+            if (configurationFingerprint == null || runStart == null || !runStart.equals(configurationRunStart)) {
+                configurationFingerprint = supplier.get();
+                configurationRunStart = runStart;
+            }
+            return configurationFingerprint;
+        }
+    }
+
+    /**
+     * Version of an object referenced (directly or indirectly) by recomputed objects, with OIDs of objects
+     * it references in turn: targets of its assignments and inducements, and its archetypes.
+     */
+    private static class ReferencedObject {
+
+        private final String version;
+        private final List<String> targetOids = new ArrayList<>();
+
+        private ReferencedObject(PrismObject<FocusType> object) {
+            FocusType focus = object.asObjectable();
+            version = object.getVersion();
+            Deque<String> targets = new ArrayDeque<>();
+            addAssignmentTargets(targets, focus.getAssignment());
+            if (focus instanceof AbstractRoleType) {
+                addAssignmentTargets(targets, ((AbstractRoleType) focus).getInducement());
+            }
+            addOids(targets, focus.getArchetypeRef());
+            targetOids.addAll(targets);
+        }
+    }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.model.impl.lens;
+
+import static com.evolveum.midpoint.prism.util.PrismTestUtil.getPrismContext;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import com.evolveum.midpoint.model.common.mapping.PrismValueDeltaSetTripleProducer;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismPropertyDefinition;
+import com.evolveum.midpoint.prism.PrismPropertyValue;
+import com.evolveum.midpoint.prism.delta.DeltaSetTriple;
+import com.evolveum.midpoint.prism.delta.ItemDelta;
+import com.evolveum.midpoint.prism.delta.PrismValueDeltaSetTriple;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.constants.MidPointConstants;
+import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.MappingStrengthType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+
+/**
+ * Consolidation of value triples for a simple multivalued property (employeeType).
+ * Values come from several mappings, so the same value can be present more than once in a set.
+ */
+public class TestIvwoConsolidator {
+
+    private static final String CONTEXT_DESCRIPTION = "consolidator test";
+
+    @BeforeSuite
+    public void setup() throws SchemaException, SAXException, IOException {
+        PrettyPrinter.setDefaultNamespacePrefix(MidPointConstants.NS_MIDPOINT_PUBLIC_PREFIX);
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    /**
+     * Values present in more sets or more times in the same set must be added or deleted only once.
+     */
+    @Test
+    public void test100DuplicateValues() throws Exception {
+        final String TEST_NAME = "test100DuplicateValues";
+        TestUtil.displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismObject<UserType> user = createUser("A", "C");
+        DeltaSetTriple<ItemValueWithOrigin<PrismPropertyValue<String>, PrismPropertyDefinition<String>>> triple =
+                getPrismContext().deltaFactory().createDeltaSetTriple(
+                        Collections.singletonList(ivwo("A", MappingStrengthType.NORMAL)),
+                        Arrays.asList(ivwo("A", MappingStrengthType.NORMAL), ivwo("B", MappingStrengthType.NORMAL),
+                                ivwo("B", MappingStrengthType.NORMAL)),
+                        Arrays.asList(ivwo("C", MappingStrengthType.NORMAL), ivwo("C", MappingStrengthType.NORMAL)));
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        ItemDelta<PrismPropertyValue<String>, PrismPropertyDefinition<String>> delta = consolidate(user, triple, false);
+        ItemDelta<PrismPropertyValue<String>, PrismPropertyDefinition<String>> deltaWithUnchanged = consolidate(user, triple, true);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertEquals("Wrong values to add", Collections.singletonList("B"), getRealValues(delta.getValuesToAdd()));
+        assertEquals("Wrong values to delete", Collections.singletonList("C"), getRealValues(delta.getValuesToDelete()));
+
+        assertEquals("Wrong values to add (with unchanged values)", Arrays.asList("A", "B"),
+                getRealValues(deltaWithUnchanged.getValuesToAdd()));
+        assertEquals("Wrong values to delete (with unchanged values)", Collections.singletonList("C"),
+                getRealValues(deltaWithUnchanged.getValuesToDelete()));
+    }
+
+    /**
+     * The computed delta adds one value and deletes the only existing one. The resulting item is not empty,
+     * so the weak mapping must not be applied.
+     */
+    @Test
+    public void test200AddAndDeleteWithWeakMapping() throws Exception {
+        final String TEST_NAME = "test200AddAndDeleteWithWeakMapping";
+        TestUtil.displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismObject<UserType> user = createUser("C");
+        DeltaSetTriple<ItemValueWithOrigin<PrismPropertyValue<String>, PrismPropertyDefinition<String>>> triple =
+                getPrismContext().deltaFactory().createDeltaSetTriple(
+                        Collections.emptyList(),
+                        Arrays.asList(ivwo("B", MappingStrengthType.NORMAL), ivwo("W", MappingStrengthType.WEAK)),
+                        Collections.singletonList(ivwo("C", MappingStrengthType.NORMAL)));
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        ItemDelta<PrismPropertyValue<String>, PrismPropertyDefinition<String>> delta = consolidate(user, triple, false);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertEquals("Wrong values to add", Collections.singletonList("B"), getRealValues(delta.getValuesToAdd()));
+        assertEquals("Wrong values to delete", Collections.singletonList("C"), getRealValues(delta.getValuesToDelete()));
+    }
+
+    /**
+     * The computed delta only deletes the only existing value. The resulting item would be empty,
+     * so the weak mapping is applied.
+     */
+    @Test
+    public void test210DeleteAllWithWeakMapping() throws Exception {
+        final String TEST_NAME = "test210DeleteAllWithWeakMapping";
+        TestUtil.displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismObject<UserType> user = createUser("C");
+        DeltaSetTriple<ItemValueWithOrigin<PrismPropertyValue<String>, PrismPropertyDefinition<String>>> triple =
+                getPrismContext().deltaFactory().createDeltaSetTriple(
+                        Collections.emptyList(),
+                        Collections.singletonList(ivwo("W", MappingStrengthType.WEAK)),
+                        Collections.singletonList(ivwo("C", MappingStrengthType.NORMAL)));
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        ItemDelta<PrismPropertyValue<String>, PrismPropertyDefinition<String>> delta = consolidate(user, triple, false);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertEquals("Wrong values to add", Collections.singletonList("W"), getRealValues(delta.getValuesToAdd()));
+        assertEquals("Wrong values to delete", Collections.singletonList("C"), getRealValues(delta.getValuesToDelete()));
+    }
+
+    private ItemDelta<PrismPropertyValue<String>, PrismPropertyDefinition<String>> consolidate(PrismObject<UserType> user,
+            DeltaSetTriple<ItemValueWithOrigin<PrismPropertyValue<String>, PrismPropertyDefinition<String>>> triple,
+            boolean addUnchangedValues) throws Exception {
+        IvwoConsolidator<PrismPropertyValue<String>, PrismPropertyDefinition<String>,
+                ItemValueWithOrigin<PrismPropertyValue<String>, PrismPropertyDefinition<String>>> consolidator = new IvwoConsolidator<>();
+        consolidator.setItemPath(UserType.F_EMPLOYEE_TYPE);
+        consolidator.setIvwoTriple(triple);
+        consolidator.setItemDefinition(user.getDefinition().findPropertyDefinition(UserType.F_EMPLOYEE_TYPE));
+        consolidator.setItemContainer(user);
+        consolidator.setAddUnchangedValues(addUnchangedValues);
+        consolidator.setContextDescription(CONTEXT_DESCRIPTION);
+        ItemDelta<PrismPropertyValue<String>, PrismPropertyDefinition<String>> delta = consolidator.consolidateToDelta();
+        System.out.println("Consolidated delta (addUnchangedValues: " + addUnchangedValues + "):\n" + delta.debugDump(1));
+        return delta;
+    }
+
+    private PrismObject<UserType> createUser(String... employeeTypes) throws SchemaException {
+        PrismObject<UserType> user = getPrismContext().createObject(UserType.class);
+        user.asObjectable().getEmployeeType().addAll(Arrays.asList(employeeTypes));
+        return user;
+    }
+
+    private ItemValueWithOrigin<PrismPropertyValue<String>, PrismPropertyDefinition<String>> ivwo(String value,
+            MappingStrengthType strength) {
+        return new ItemValueWithOrigin<>(getPrismContext().itemFactory().createPropertyValue(value), new TestMapping(strength), null);
+    }
+
+    private List<String> getRealValues(Collection<PrismPropertyValue<String>> values) {
+        List<String> rv = new ArrayList<>();
+        if (values != null) {
+            for (PrismPropertyValue<String> value : values) {
+                rv.add(value.getValue());
+            }
+        }
+        Collections.sort(rv);
+        return rv;
+    }
+
+    private static class TestMapping implements PrismValueDeltaSetTripleProducer<PrismPropertyValue<String>, PrismPropertyDefinition<String>> {
+
+        private final MappingStrengthType strength;
+
+        private TestMapping(MappingStrengthType strength) {
+            this.strength = strength;
+        }
+
+        @Override
+        public QName getMappingQName() {
+            return UserType.F_EMPLOYEE_TYPE;
+        }
+
+        @Override
+        public PrismValueDeltaSetTriple<PrismPropertyValue<String>> getOutputTriple() {
+            return null;
+        }
+
+        @Override
+        public MappingStrengthType getStrength() {
+            return strength;
+        }
+
+        @Override
+        public TestMapping clone() {
+            return this;
+        }
+
+        @Override
+        public boolean isExclusive() {
+            return false;
+        }
+
+        @Override
+        public boolean isAuthoritative() {
+            return true;
+        }
+
+        @Override
+        public boolean isSourceless() {
+            return false;
+        }
+
+        @Override
+        public String getIdentifier() {
+            return null;
+        }
+
+        @Override
+        public String toHumanReadableDescription() {
+            return "test mapping (" + strength + ")";
+        }
+    }
+}
@@ -12,6 +12,8 @@ import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.delta.ObjectDelta;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.repo.api.perf.OperationPerformanceInformation;
 import com.evolveum.midpoint.schema.SearchResultList;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
@@ -38,6 +40,7 @@ import java.util.Map;
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 /**
  * Tests some of the "new" policy rules (state, hasAssignment).
@@ -67,6 +70,10 @@ public class TestPolicyRules2 extends AbstractLensTest {
     protected static final File ROLE_NO_INDUCEMENTS_ADD_DELETE_FILE = new File(TEST_DIR, "role-no-inducements-add-delete.xml");
     protected static final File ROLE_NO_INDUCEMENTS_ADD_DELETE_VIA_EXPRESSION_FILE = new File(TEST_DIR, "role-no-inducements-add-delete-via-expression.xml");
 
+    protected static final File ROLE_MULTIPLICITY_SINGLE_FILE = new File(TEST_DIR, "role-multiplicity-single.xml");
+    protected static final File ROLE_MULTIPLICITY_SHARED_FILE = new File(TEST_DIR, "role-multiplicity-shared.xml");
+    protected static final File ROLE_MULTIPLICITY_RELATIONS_FILE = new File(TEST_DIR, "role-multiplicity-relations.xml");
+
     private static final int STUDENT_TARGET_RULES = 6;          // one is global
     private static final int STUDENT_FOCUS_RULES = 21;
 
@@ -80,6 +87,9 @@ public class TestPolicyRules2 extends AbstractLensTest {
     private String roleStudentOid;
     private String userJoeOid;
     private String userFrankOid;
+    private String roleMultiplicitySingleOid;
+    private String roleMultiplicitySharedOid;
+    private String roleMultiplicityRelationsOid;
 
     @Override
     public void initSystem(Task initTask, OperationResult initResult) throws Exception {
@@ -95,6 +105,17 @@ public class TestPolicyRules2 extends AbstractLensTest {
         roleStudentOid = addAndRecompute(ROLE_STUDENT_FILE, initTask, initResult);
         userJoeOid = addAndRecompute(USER_JOE_FILE, initTask, initResult);
         userFrankOid = addAndRecompute(USER_FRANK_FILE, initTask, initResult);
+        roleMultiplicitySingleOid = addAndRecompute(ROLE_MULTIPLICITY_SINGLE_FILE, initTask, initResult);
+        roleMultiplicitySharedOid = addAndRecompute(ROLE_MULTIPLICITY_SHARED_FILE, initTask, initResult);
+        roleMultiplicityRelationsOid = addAndRecompute(ROLE_MULTIPLICITY_RELATIONS_FILE, initTask, initResult);
+
+        // the only assignee of "Multiplicity relations" role (with the default relation)
+        UserType relationsAssignee = new UserType(prismContext)
+                .name("multiplicity-relations-assignee")
+                .beginAssignment()
+                    .targetRef(roleMultiplicityRelationsOid, RoleType.COMPLEX_TYPE)
+                .end();
+        repositoryService.addObject(relationsAssignee.asPrismObject(), null, initResult);
 
         assumeAssignmentPolicy(AssignmentPolicyEnforcementType.FULL);
 
@@ -971,4 +992,108 @@ public class TestPolicyRules2 extends AbstractLensTest {
         }
     }
 
+    /**
+     * Three min/max assignees constraints on the same target and relation should share one assignee count.
+     * The number of counting operations is compared with a role having a single such constraint.
+     */
+    @Test
+    public void test400AssignRoleWithSharedAssigneeCount() throws Exception {
+        final String TEST_NAME = "test400AssignRoleWithSharedAssigneeCount";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        Task task = taskManager.createTaskInstance(TestPolicyRules2.class.getName() + "." + TEST_NAME);
+        OperationResult result = task.getResult();
+
+        LensContext<UserType> singleContext = createUserLensContext();
+        fillContextWithUser(singleContext, USER_JACK_OID, result);
+        addModificationToContextAssignRole(singleContext, USER_JACK_OID, roleMultiplicitySingleOid);
+
+        LensContext<UserType> sharedContext = createUserLensContext();
+        fillContextWithUser(sharedContext, USER_JACK_OID, result);
+        addModificationToContextAssignRole(sharedContext, USER_JACK_OID, roleMultiplicitySharedOid);
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        int singleCounts = projectAndGetCountOperations(singleContext, task, result);
+        int sharedCounts = projectAndGetCountOperations(sharedContext, task, result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertSuccess(result);
+
+        dumpPolicyRules(sharedContext);
+        assertTargetTriggers(sharedContext, PolicyConstraintKindType.MAX_ASSIGNEES_VIOLATION, 0);
+        assertTargetTriggers(sharedContext, PolicyConstraintKindType.MIN_ASSIGNEES_VIOLATION, 0);
+
+        assertTrue("No assignee counting for a single constraint", singleCounts > 0);
+        assertEquals("Wrong # of assignee counting operations for constraints sharing the count", singleCounts, sharedCounts);
+    }
+
+    /**
+     * Constraints on the same target that differ by relation must not share the count: the role has one
+     * existing assignee with the default relation and none with the approver relation. Only the default-relation
+     * constraint should trigger, and each relation should be counted separately.
+     */
+    @Test
+    public void test410AssignRoleWithDifferentRelations() throws Exception {
+        final String TEST_NAME = "test410AssignRoleWithDifferentRelations";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        Task task = taskManager.createTaskInstance(TestPolicyRules2.class.getName() + "." + TEST_NAME);
+        OperationResult result = task.getResult();
+
+        LensContext<UserType> singleContext = createUserLensContext();
+        fillContextWithUser(singleContext, USER_JACK_OID, result);
+        addModificationToContextAssignRole(singleContext, USER_JACK_OID, roleMultiplicitySingleOid);
+
+        LensContext<UserType> context = createUserLensContext();
+        fillContextWithUser(context, USER_JACK_OID, result);
+        ObjectDelta<UserType> delta = prismContext.deltaFor(UserType.class)
+                .item(UserType.F_ASSIGNMENT).add(
+                        new AssignmentType(prismContext)
+                                .targetRef(roleMultiplicityRelationsOid, RoleType.COMPLEX_TYPE),
+                        new AssignmentType(prismContext)
+                                .targetRef(roleMultiplicityRelationsOid, RoleType.COMPLEX_TYPE, SchemaConstants.ORG_APPROVER))
+                .asObjectDeltaCast(USER_JACK_OID);
+        addFocusDeltaToContext(context, delta);
+        display("Input context", context);
+
+        assertFocusModificationSanity(context);
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        int singleCounts = projectAndGetCountOperations(singleContext, task, result);
+        int relationsCounts = projectAndGetCountOperations(context, task, result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertSuccess(result);
+
+        dumpPolicyRules(context);
+        assertTargetTriggers(context, PolicyConstraintKindType.MAX_ASSIGNEES_VIOLATION, 1);
+        EvaluatedPolicyRule triggeredRule = getTriggeredTargetPolicyRule(context, roleMultiplicityRelationsOid,
+                PolicyConstraintKindType.MAX_ASSIGNEES_VIOLATION);
+        assertEquals("Wrong triggered rule", "max1", triggeredRule.getName());
+
+        assertTrue("No assignee counting for a single constraint", singleCounts > 0);
+        assertEquals("Wrong # of assignee counting operations for constraints differing by relation", 2 * singleCounts,
+                relationsCounts);
+    }
+
+    private int projectAndGetCountOperations(LensContext<UserType> context, Task task, OperationResult result)
+            throws Exception {
+        repositoryService.getPerformanceMonitor().setConfiguration(new RepositoryStatisticsReportingConfigurationType(prismContext)
+                .collection(RepositoryStatisticsCollectionStyleType.GLOBALLY));
+        try {
+            repositoryService.getPerformanceMonitor().clearGlobalPerformanceInformation();
+            projector.project(context, ACTIVITY_DESCRIPTION, task, result);
+            OperationPerformanceInformation countData = repositoryService.getPerformanceMonitor()
+                    .getGlobalPerformanceInformation().getAllData().get(RepositoryService.OP_COUNT_OBJECTS);
+            return countData != null ? countData.getInvocationCount() : 0;
+        } finally {
+            repositoryService.getPerformanceMonitor().setConfiguration(null);
+        }
+    }
 }
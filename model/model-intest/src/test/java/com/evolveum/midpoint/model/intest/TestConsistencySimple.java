@@ -144,6 +144,15 @@ public class TestConsistencySimple extends AbstractInitializedModelIntegrationTe
         executeTest("test270Recompute_Delete_Delete", FocusOperation.RECOMPUTE, ShadowOperation.DELETE, ResourceObjectOperation.KEEP);
     }
 
+    /**
+     * Linked account deleted on the resource only (shadow and linkRef kept). Reconciliation has to find out
+     * that the account is gone and re-create it.
+     */
+    @Test
+    public void test300Reconcile_Keep_DeleteOnResource() throws Exception {
+        executeTest("test300Reconcile_Keep_DeleteOnResource", FocusOperation.RECONCILE, ShadowOperation.KEEP, ResourceObjectOperation.DELETE);
+    }
+
     private void executeTest(final String TEST_NAME, FocusOperation focusOperation, ShadowOperation shadowOperation,
             ResourceObjectOperation resourceObjectOperation) throws Exception {
         displayTestTitle(TEST_NAME);
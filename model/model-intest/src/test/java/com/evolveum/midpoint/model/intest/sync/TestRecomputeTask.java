@@ -50,6 +50,7 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentPolicyEnfo
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ConstructionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.MappingStrengthType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectTemplateType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceAttributeDefinitionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
@@ -77,6 +78,14 @@ public class TestRecomputeTask extends AbstractInitializedModelIntegrationTest {
     private static final File TASK_USER_RECOMPUTE_HERMAN_BY_EXPRESSION_FILE = new File(TEST_DIR, "task-user-recompute-herman-by-expression.xml");
     private static final String TASK_USER_RECOMPUTE_HERMAN_BY_EXPRESSION_OID = "91919191-76e0-59e2-86d6-3d4f02d3aadd";
 
+    private static final File TASK_USER_RECOMPUTE_SKIP_UNCHANGED_FILE = new File(TEST_DIR, "task-user-recompute-skip-unchanged.xml");
+    private static final String TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID = "5f2b1e4c-0b8d-4a77-9d7e-2c1a4f3e9b10";
+
+    private static final File TASK_USER_RECOMPUTE_SKIP_UNCHANGED_RECONCILE_FILE = new File(TEST_DIR, "task-user-recompute-skip-unchanged-reconcile.xml");
+    private static final String TASK_USER_RECOMPUTE_SKIP_UNCHANGED_RECONCILE_OID = "5f2b1e4c-0b8d-4a77-9d7e-2c1a4f3e9b11";
+
+    private static final String ROLE_JUDGE_META_OID = "5f2b1e4c-0b8d-4a77-9d7e-2c1a4f3e9b20";
+
     @Override
     public void initSystem(Task initTask, OperationResult initResult) throws Exception {
         super.initSystem(initTask, initResult);
@@ -446,4 +455,212 @@ public class TestRecomputeTask extends AbstractInitializedModelIntegrationTest {
 
     }
 
+    /**
+     * First run of a task with skipUnchangedObjects. Jack has to be recomputed. Then he is recomputed once more
+     * (because the first recompute might have changed him) and from then on he is skipped.
+     */
+    @Test
+    public void test200RecomputeSkipUnchanged() throws Exception {
+        final String TEST_NAME = "test200RecomputeSkipUnchanged";
+        TestUtil.displayTestTitle(this, TEST_NAME);
+
+        // GIVEN
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        addTask(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_FILE);
+        waitForTaskStart(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID, false);
+        waitForTaskFinish(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID, true);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertProjectorRuns(true);
+
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        assertProjectorRuns(false);
+    }
+
+    /**
+     * Jack is member of the judge role. Its modification makes the recompute happen again.
+     */
+    @Test
+    public void test210RecomputeSkipUnchangedRoleModified() throws Exception {
+        final String TEST_NAME = "test210RecomputeSkipUnchangedRoleModified";
+        TestUtil.displayTestTitle(this, TEST_NAME);
+
+        // GIVEN
+        Task task = createTask(TEST_NAME);
+        OperationResult result = task.getResult();
+
+        assertRoleMembershipRef(getUser(USER_JACK_OID), ROLE_JUDGE_OID);
+        modifyObjectReplaceProperty(RoleType.class, ROLE_JUDGE_OID, RoleType.F_DESCRIPTION, task, result, "Modified judge");
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertProjectorRuns(true);
+
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        assertProjectorRuns(false);
+    }
+
+    /**
+     * The judge role gets a meta-role. It is not in Jack's roleMembershipRef, but its modification
+     * makes the recompute happen again.
+     */
+    @Test
+    public void test212RecomputeSkipUnchangedMetaRoleModified() throws Exception {
+        final String TEST_NAME = "test212RecomputeSkipUnchangedMetaRoleModified";
+        TestUtil.displayTestTitle(this, TEST_NAME);
+
+        // GIVEN
+        Task task = createTask(TEST_NAME);
+        OperationResult result = task.getResult();
+
+        RoleType metaRole = new RoleType(prismContext)
+                .oid(ROLE_JUDGE_META_OID)
+                .name("Judge meta-role");
+        addObject(metaRole.asPrismObject(), task, result);
+        assignRole(RoleType.class, ROLE_JUDGE_OID, ROLE_JUDGE_META_OID, task, result);
+
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        assertProjectorRuns(false);
+
+        modifyObjectReplaceProperty(RoleType.class, ROLE_JUDGE_META_OID, RoleType.F_DESCRIPTION, task, result, "Modified meta-role");
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertProjectorRuns(true);
+    }
+
+    /**
+     * The meta-role is deleted (without any referential integrity, so the judge role still points to it).
+     * As its version cannot be determined, Jack must not be skipped.
+     */
+    @Test
+    public void test214RecomputeSkipUnchangedMetaRoleDeleted() throws Exception {
+        final String TEST_NAME = "test214RecomputeSkipUnchangedMetaRoleDeleted";
+        TestUtil.displayTestTitle(this, TEST_NAME);
+
+        // GIVEN
+        Task task = createTask(TEST_NAME);
+        OperationResult result = task.getResult();
+
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+        assertProjectorRuns(false);
+
+        repositoryService.deleteObject(RoleType.class, ROLE_JUDGE_META_OID, result);
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        // The recompute itself complains about the missing meta-role, so the task result is not checked.
+        waitForTaskNextRun(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID, false, DEFAULT_TASK_WAIT_TIMEOUT, true);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertProjectorRuns(true);
+
+        // Cleanup: remove the dangling meta-role assignment from the judge role.
+        RoleType judge = repositoryService.getObject(RoleType.class, ROLE_JUDGE_OID, null, result).asObjectable();
+        AssignmentType metaRoleAssignment = judge.getAssignment().stream()
+                .filter(a -> a.getTargetRef() != null && ROLE_JUDGE_META_OID.equals(a.getTargetRef().getOid()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No meta-role assignment in " + judge));
+        repositoryService.modifyObject(RoleType.class, ROLE_JUDGE_OID,
+                prismContext.deltaFor(RoleType.class)
+                        .item(RoleType.F_ASSIGNMENT).delete(new AssignmentType(prismContext).id(metaRoleAssignment.getId()))
+                        .asItemDeltas(), result);
+    }
+
+    /**
+     * Object templates are part of the configuration fingerprint, so their modification makes the recompute happen again.
+     */
+    @Test
+    public void test220RecomputeSkipUnchangedTemplateModified() throws Exception {
+        final String TEST_NAME = "test220RecomputeSkipUnchangedTemplateModified";
+        TestUtil.displayTestTitle(this, TEST_NAME);
+
+        // GIVEN
+        Task task = createTask(TEST_NAME);
+        OperationResult result = task.getResult();
+
+        modifyObjectReplaceProperty(ObjectTemplateType.class, USER_TEMPLATE_OID, ObjectTemplateType.F_DESCRIPTION, task, result, "Modified template");
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertProjectorRuns(true);
+
+        deleteObject(TaskType.class, TASK_USER_RECOMPUTE_SKIP_UNCHANGED_OID, task, result);
+    }
+
+    /**
+     * Reconciliation (the default when there are no model execute options) looks at resource objects,
+     * so nothing is skipped even if skipUnchangedObjects is set.
+     */
+    @Test
+    public void test230RecomputeSkipUnchangedWithReconcile() throws Exception {
+        final String TEST_NAME = "test230RecomputeSkipUnchangedWithReconcile";
+        TestUtil.displayTestTitle(this, TEST_NAME);
+
+        // GIVEN
+        Task task = createTask(TEST_NAME);
+        OperationResult result = task.getResult();
+
+        addTask(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_RECONCILE_FILE);
+        waitForTaskStart(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_RECONCILE_OID, false);
+        waitForTaskFinish(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_RECONCILE_OID, true);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_RECONCILE_OID);
+        rememberCounter(InternalCounters.PROJECTOR_RUN_COUNT);
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        runTaskAgain(TASK_USER_RECOMPUTE_SKIP_UNCHANGED_RECONCILE_OID);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertProjectorRuns(true);
+
+        deleteObject(TaskType.class, TASK_USER_RECOMPUTE_SKIP_UNCHANGED_RECONCILE_OID, task, result);
+    }
+
+    private void runTaskAgain(String taskOid) throws Exception {
+        OperationResult taskResult = waitForTaskNextRun(taskOid, true, DEFAULT_TASK_WAIT_TIMEOUT, true);
+        TestUtil.assertSuccess(taskResult);
+    }
+
+    private void assertProjectorRuns(boolean expected) {
+        long runs = getCounterIncrement(InternalCounters.PROJECTOR_RUN_COUNT);
+        display("Projector runs", runs);
+        if (expected) {
+            assertTrue("Jack was not recomputed", runs > 0);
+        } else {
+            assertEquals("Jack was recomputed although nothing has changed", 0, runs);
+        }
+    }
 }
@@ -193,9 +193,9 @@ public class ShadowCaretaker {
         PrismContainerDefinition<ShadowAttributesType> origAttrContainerDef = objectDefinition
                 .findContainerDefinition(ShadowType.F_ATTRIBUTES);
         if (!(origAttrContainerDef instanceof ResourceAttributeContainerDefinition)) {
-            PrismObjectDefinition<ShadowType> clonedDefinition = objectDefinition.cloneWithReplacedDefinition(
-                    ShadowType.F_ATTRIBUTES, objectClassDefinition.toResourceAttributeContainerDefinition());
-            shadow.setDefinition(clonedDefinition);
+            // The object definition is constructed once per object class definition and shared (as in ShadowCache),
+            // so we do not create a new copy of the shadow definition for each shadow.
+            shadow.setDefinition(objectClassDefinition.getObjectDefinition());
         }
 
         return subctx;
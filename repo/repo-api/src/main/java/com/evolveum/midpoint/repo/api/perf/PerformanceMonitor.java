@@ -9,6 +9,8 @@ package com.evolveum.midpoint.repo.api.perf;
 
 import com.evolveum.midpoint.xml.ns._public.common.common_3.RepositoryStatisticsReportingConfigurationType;
 
+import java.util.Map;
+
 /**
  *  EXPERIMENTAL. Probably temporary.
  */
@@ -31,4 +33,11 @@ public interface PerformanceMonitor {
     PerformanceInformation getThreadLocalPerformanceInformation();
 
     void setConfiguration(RepositoryStatisticsReportingConfigurationType statistics);
+
+    /**
+     * Returns the number of repeated operation attempts (caused by serialization/locking conflicts) per object type
+     * simple name, since the start or the last clearing of global performance information.
+     * Attempts of operations without object type are counted under an implementation-specific key.
+     */
+    Map<String, Long> getConflictCounts();
 }
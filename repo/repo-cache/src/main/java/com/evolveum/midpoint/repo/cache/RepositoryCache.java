@@ -1001,15 +1001,18 @@ public class RepositoryCache implements RepositoryService, Cacheable {
     @Override
     public <T extends ObjectType> int countObjects(Class<T> type, ObjectQuery query, OperationResult parentResult)
             throws SchemaException {
-        // TODO use cached query result if applicable
         OperationResult result = parentResult.subresult(COUNT_OBJECTS)
                 .addQualifier(type.getSimpleName())
                 .addParam("type", type)
                 .addParam("query", query)
                 .build();
-        log("Cache: PASS countObjects ({})", false, type.getSimpleName());
         Long startTime = repoOpStart();
         try {
+            Integer cachedCount = getCountFromCachedSearchResult(type, query, null);
+            if (cachedCount != null) {
+                return cachedCount;
+            }
+            log("Cache: PASS countObjects ({})", false, type.getSimpleName());
             return repositoryService.countObjects(type, query, null, result);
         } catch (Throwable t) {
             result.recordFatalError(t);
@@ -1046,16 +1049,19 @@ public class RepositoryCache implements RepositoryService, Cacheable {
     public <T extends ObjectType> int countObjects(Class<T> type, ObjectQuery query,
             Collection<SelectorOptions<GetOperationOptions>> options, OperationResult parentResult)
             throws SchemaException {
-        // TODO use cached query result if applicable
         OperationResult result = parentResult.subresult(COUNT_OBJECTS)
                 .addQualifier(type.getSimpleName())
                 .addParam("type", type)
                 .addParam("query", query)
                 .addArbitraryObjectCollectionAsParam("options", options)
                 .build();
-        log("Cache: PASS countObjects ({})", false, type.getSimpleName());
         Long startTime = repoOpStart();
         try {
+            Integer cachedCount = getCountFromCachedSearchResult(type, query, options);
+            if (cachedCount != null) {
+                return cachedCount;
+            }
+            log("Cache: PASS countObjects ({})", false, type.getSimpleName());
             return repositoryService.countObjects(type, query, options, result);
         } catch (Throwable t) {
             result.recordFatalError(t);
@@ -1066,6 +1072,44 @@ public class RepositoryCache implements RepositoryService, Cacheable {
         }
     }
 
+    /**
+     * If the local or global query cache contains a complete (i.e. unpaged) result of the same search,
+     * its size is the count we are looking for. Returns null if there is no such result.
+     *
+     * Hits are registered in the same way as in searchObjects; misses are not, because counts
+     * themselves are never cached (it is the corresponding search that fills the cache).
+     */
+    private <T extends ObjectType> Integer getCountFromCachedSearchResult(Class<T> type, ObjectQuery query,
+            Collection<SelectorOptions<GetOperationOptions>> options) {
+        if (query != null && query.getPaging() != null || getPassReason(options, type) != null) {
+            return null;
+        }
+        CachePerformanceCollector collector = CachePerformanceCollector.INSTANCE;
+        QueryKey key = new QueryKey(type, query);
+        LocalQueryCache localQueryCache = getLocalQueryCache();
+        if (localQueryCache != null) {
+            Context local = new Context(localQueryCache.getConfiguration(), type);
+            //noinspection unchecked
+            SearchResultList<PrismObject<T>> cachedResult = local.supports ? localQueryCache.get(key) : null;
+            if (cachedResult != null) {
+                localQueryCache.registerHit();
+                collector.registerHit(LocalQueryCache.class, type, local.statisticsLevel);
+                log("Cache: HIT countObjects {} ({})", false, query, type.getSimpleName());
+                return cachedResult.size();
+            }
+        }
+        if (globalQueryCache.isAvailable()) {
+            Context global = new Context(globalQueryCache.getConfiguration(), type);
+            SearchResultList<PrismObject<T>> cachedResult = global.supports ? globalQueryCache.get(key) : null;
+            if (cachedResult != null) {
+                collector.registerHit(GlobalQueryCache.class, type, global.statisticsLevel);
+                log("Cache (global): HIT countObjects {} ({})", false, query, type.getSimpleName());
+                return cachedResult.size();
+            }
+        }
+        return null;
+    }
+
     @NotNull
     public <T extends ObjectType> ModifyObjectResult<T> modifyObject(Class<T> type, String oid, Collection<? extends ItemDelta> modifications,
                                                     OperationResult parentResult) throws ObjectNotFoundException, SchemaException, ObjectAlreadyExistsException {
@@ -1941,7 +1985,8 @@ public class RepositoryCache implements RepositoryService, Cacheable {
         @Override
         public boolean handle(PrismObject<T> object, OperationResult parentResult) {
             if (objects.size() < QUERY_RESULT_SIZE_LIMIT) {
-                objects.add(object.clone());        // todo optimize on read only option
+                // Immutable objects cannot be changed by the original handler, so there's no need to copy them.
+                objects.add(object.isImmutable() ? object : object.clone());
             } else {
                 overflown = true;
             }
@@ -94,6 +94,16 @@ public class TestRepositoryCache extends AbstractTestNGSpringContextTests {
         testSearchObjectsIterative(ArchetypeType.class, 5, true);
     }
 
+    @Test
+    public void testCountUsersAfterSearch() throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
+        testCountObjectsAfterSearch(UserType.class, 5, false);
+    }
+
+    @Test
+    public void testCountArchetypesAfterSearch() throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
+        testCountObjectsAfterSearch(ArchetypeType.class, 5, true);
+    }
+
     private <T extends ObjectType> void testGetObject(Class<T> objectClass, boolean isCached) throws ObjectAlreadyExistsException, SchemaException, ObjectNotFoundException {
         clearStatistics();
 
@@ -178,6 +188,50 @@ public class TestRepositoryCache extends AbstractTestNGSpringContextTests {
         assertOperations(RepositoryService.OP_SEARCH_OBJECTS, isCached ? 1 : 3);
     }
 
+    private <T extends ObjectType> void testCountObjectsAfterSearch(Class<T> objectClass, int count, boolean isCached)
+            throws ObjectAlreadyExistsException, SchemaException, ObjectNotFoundException {
+        OperationResult result = new OperationResult("testCountObjectsAfterSearch");
+
+        deleteExistingObjects(objectClass, result);
+
+        clearStatistics();
+
+        generateObjects(objectClass, count, result);
+
+        SearchResultList<PrismObject<T>> objects = repositoryCache.searchObjects(objectClass, null, null, result);
+        assertEquals("Wrong # of objects found", count, objects.size());
+
+        int count1 = repositoryCache.countObjects(objectClass, null, null, result);
+        assertEquals("Wrong count1", count, count1);
+
+        dumpStatistics();
+        assertOperations(RepositoryService.OP_COUNT_OBJECTS, isCached ? 0 : 1);
+
+        // any modification of an object of given type must invalidate the cached search result (and thus the count)
+        repositoryCache.modifyObject(objectClass, objects.get(0).getOid(),
+                getPrismContext().deltaFor(objectClass)
+                        .item(ObjectType.F_DESCRIPTION).replace("modified")
+                        .asItemDeltas(), result);
+
+        int count2 = repositoryCache.countObjects(objectClass, null, null, result);
+        assertEquals("Wrong count2", count, count2);
+
+        dumpStatistics();
+        assertOperations(RepositoryService.OP_COUNT_OBJECTS, isCached ? 1 : 2);
+
+        // the same for adding an object: the count must reflect it
+        repositoryCache.searchObjects(objectClass, null, null, result);
+        PrismObject<T> extra = getPrismContext().createObject(objectClass);
+        extra.asObjectable().setName(PolyStringType.fromOrig("T:extra"));
+        repositoryCache.addObject(extra, null, result);
+
+        int count3 = repositoryCache.countObjects(objectClass, null, null, result);
+        assertEquals("Wrong count3", count + 1, count3);
+
+        dumpStatistics();
+        assertOperations(RepositoryService.OP_COUNT_OBJECTS, isCached ? 2 : 3);
+    }
+
     private <T extends ObjectType> SearchResultList<PrismObject<T>> searchObjectsIterative(Class<T> objectClass, ObjectQuery query,
             Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result) throws SchemaException {
         SearchResultList<PrismObject<T>> objects = new SearchResultList<>();
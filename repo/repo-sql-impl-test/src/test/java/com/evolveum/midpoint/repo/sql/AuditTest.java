@@ -14,13 +14,16 @@ import com.evolveum.midpoint.audit.api.AuditReferenceValue;
 import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.repo.sql.data.audit.RAuditEventRecord;
 import com.evolveum.midpoint.schema.ObjectDeltaOperation;
+import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.task.api.test.NullTaskImpl;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import org.apache.commons.lang.StringUtils;
 import org.hibernate.query.Query;
 import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.testng.annotations.Test;
@@ -28,6 +31,7 @@ import org.testng.annotations.Test;
 import java.util.*;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
 
 /**
  * @author mederly
@@ -38,6 +42,8 @@ public class AuditTest extends BaseSQLRepoTest {
 
     private static final Trace LOGGER = TraceManager.getTrace(AuditTest.class);
 
+    @Autowired private SqlAuditServiceFactory auditServiceFactory;
+
     @Test
     public void test100AuditSimple() throws Exception {
         LOGGER.info("===[ test100AuditSimple ]===");
@@ -122,6 +128,139 @@ public class AuditTest extends BaseSQLRepoTest {
         auditService.audit(record, new NullTaskImpl());
     }
 
+    /**
+     * Records queued by the asynchronous writer must all be written when the writer is stopped.
+     */
+    @Test
+    public void test200AuditAsynchronousFlushOnStop() throws Exception {
+        LOGGER.info("===[ test200AuditAsynchronousFlushOnStop ]===");
+
+        // GIVEN
+        SqlAuditServiceImpl sqlAuditService = getSqlAuditService();
+        long countBefore = countAuditRecords();
+
+        // WHEN
+        sqlAuditService.startAsynchronousWriter(100);
+        try {
+            for (int i = 0; i < 80; i++) {
+                AuditEventRecord record = new AuditEventRecord();
+                record.addPropertyValue("async", "val" + i);
+                sqlAuditService.audit(record, new NullTaskImpl());
+            }
+        } finally {
+            sqlAuditService.stopAsynchronousWriter();
+        }
+
+        // THEN
+        assertEquals("Wrong queue size after stop", 0, sqlAuditService.getAsyncQueueSize());
+        assertEquals("Wrong # of records written", countBefore + 80, countAuditRecords());
+    }
+
+    /**
+     * A record that cannot be written (target OID too long for its column) must not cause other records
+     * of the same batch to be lost.
+     */
+    @Test
+    public void test210AuditAsynchronousBadRecordInBatch() throws Exception {
+        LOGGER.info("===[ test210AuditAsynchronousBadRecordInBatch ]===");
+
+        // GIVEN
+        SqlAuditServiceImpl sqlAuditService = getSqlAuditService();
+        long countBefore = countAuditRecords();
+
+        // WHEN
+        sqlAuditService.startAsynchronousWriter(100);
+        try {
+            for (int i = 0; i < 30; i++) {
+                AuditEventRecord record = new AuditEventRecord();
+                record.addPropertyValue("async", "val" + i);
+                if (i == 15) {
+                    record.setTarget(prismContext.itemFactory().createReferenceValue(StringUtils.repeat("x", 100), UserType.COMPLEX_TYPE));
+                }
+                sqlAuditService.audit(record, new NullTaskImpl());
+            }
+        } finally {
+            sqlAuditService.stopAsynchronousWriter();
+        }
+
+        // THEN
+        assertEquals("Wrong # of records written", countBefore + 29, countAuditRecords());
+    }
+
+    /**
+     * Lists more records than fit into one fetch of the main result set. Deltas, properties, references
+     * and resource OIDs are loaded by sub-queries while that result set is open, so all of them must be present
+     * for every record.
+     */
+    @Test
+    public void test300ListRecordsMoreThanFetchSize() throws Exception {
+        LOGGER.info("===[ test300ListRecordsMoreThanFetchSize ]===");
+
+        // GIVEN
+        final int COUNT = 600;
+        final String CHANNEL = "http://midpoint.evolveum.com/xml/ns/test/audit#test300";
+        for (int i = 0; i < COUNT; i++) {
+            AuditEventRecord record = new AuditEventRecord();
+            record.setChannel(CHANNEL);
+            record.setEventType(AuditEventType.MODIFY_OBJECT);
+            record.setEventStage(AuditEventStage.EXECUTION);
+            ObjectDeltaOperation delta = new ObjectDeltaOperation();
+            delta.setObjectDelta(prismContext.deltaFactory().object().createModificationAddReference(UserType.class,
+                    "user-" + i, UserType.F_LINK_REF, "shadow-" + i));
+            record.getDeltas().add(delta);
+            record.addPropertyValue("index", String.valueOf(i));
+            record.addPropertyValue("multi", "a");
+            record.addPropertyValue("multi", "b");
+            record.addReferenceValue("ref", new AuditReferenceValue("oid-" + i, RoleType.COMPLEX_TYPE, poly("role-" + i)));
+            record.addResourceOid("resource-" + i);
+            auditService.audit(record, new NullTaskImpl());
+        }
+
+        // WHEN
+        Map<String, Object> params = new HashMap<>();
+        params.put("channel", CHANNEL);
+        OperationResult result = new OperationResult("test300ListRecordsMoreThanFetchSize");
+        List<AuditEventRecord> records = auditService.listRecords(
+                "select * from m_audit_event as aer where aer.channel = :channel", params, result);
+
+        // THEN
+        result.computeStatus();
+        assertTrue("Listing failed: " + result, result.isSuccess());
+        assertEquals("Wrong # of records", COUNT, records.size());
+        Set<String> indices = new HashSet<>();
+        for (AuditEventRecord record : records) {
+            Set<String> index = record.getPropertyValues("index");
+            assertEquals("Wrong index values in " + record, 1, index.size());
+            String i = index.iterator().next();
+            indices.add(i);
+            assertEquals("Wrong # of properties in record " + i, 2, record.getProperties().size());
+            assertEquals("Wrong multi values in record " + i, new HashSet<>(Arrays.asList("a", "b")), record.getPropertyValues("multi"));
+            assertEquals("Wrong # of deltas in record " + i, 1, record.getDeltas().size());
+            assertEquals("Wrong delta OID in record " + i, "user-" + i, record.getDeltas().iterator().next().getObjectDelta().getOid());
+            assertEquals("Wrong ref values in record " + i, Collections.singleton(
+                    new AuditReferenceValue("oid-" + i, RoleType.COMPLEX_TYPE, poly("role-" + i))), record.getReferenceValues("ref"));
+            assertEquals("Wrong resource OIDs in record " + i, Collections.singleton("resource-" + i), record.getResourceOids());
+        }
+        assertEquals("Some records were returned more than once", COUNT, indices.size());
+    }
+
+    private SqlAuditServiceImpl getSqlAuditService() throws Exception {
+        return (SqlAuditServiceImpl) auditServiceFactory.getAuditService();
+    }
+
+    private long countAuditRecords() {
+        Session session = getFactory().openSession();
+        try {
+            session.beginTransaction();
+            Query query = session.createQuery("select count(*) from " + RAuditEventRecord.class.getSimpleName());
+            Number count = (Number) query.uniqueResult();
+            session.getTransaction().commit();
+            return count.longValue();
+        } finally {
+            session.close();
+        }
+    }
+
     private AuditEventRecord getAuditEventRecord(int expectedCount, int index) {
         Session session = getFactory().openSession();
         try {
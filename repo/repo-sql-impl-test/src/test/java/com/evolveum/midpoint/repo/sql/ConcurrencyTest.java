@@ -13,6 +13,7 @@ import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.ModificationPrecondition;
 import com.evolveum.midpoint.repo.sql.testing.SqlRepoTestUtil;
 import com.evolveum.midpoint.schema.SearchResultList;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
@@ -33,8 +34,10 @@ import javax.xml.namespace.QName;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -738,6 +741,36 @@ public class ConcurrencyTest extends BaseSQLRepoTest {
                 repositoryService.countObjects(UserType.class, null, null, result));
     }
 
+    /**
+     * Forces one serialization-related retry of modifyObject and checks that it is counted as a conflict.
+     */
+    @Test
+    public void test140ConflictCounts() throws Exception {
+        OperationResult result = new OperationResult("test140ConflictCounts");
+
+        String oid = repositoryService.addObject(new UserType(prismContext).name("conflicting").asPrismObject(), null, result);
+        repositoryService.getPerformanceMonitor().clearGlobalPerformanceInformation();
+
+        AtomicInteger preconditionChecks = new AtomicInteger(0);
+        ModificationPrecondition<UserType> conflictOnFirstAttempt = object -> {
+            if (preconditionChecks.incrementAndGet() == 1) {
+                throw new SerializationRelatedException("Simulated conflict");
+            }
+            return true;
+        };
+        List<ItemDelta<?, ?>> deltas = prismContext.deltaFor(UserType.class)
+                .item(UserType.F_DESCRIPTION).replace("modified after a conflict")
+                .asItemDeltas();
+        repositoryService.modifyObject(UserType.class, oid, deltas, conflictOnFirstAttempt, null, result);
+
+        Map<String, Long> conflictCounts = repositoryService.getPerformanceMonitor().getConflictCounts();
+        System.out.println("Conflict counts: " + conflictCounts);
+        assertEquals("Wrong # of precondition checks", 2, preconditionChecks.get());
+        assertEquals("Wrong conflict counts", Collections.singletonMap(UserType.class.getSimpleName(), 1L), conflictCounts);
+        assertEquals("Description was not modified", "modified after a conflict",
+                repositoryService.getObject(UserType.class, oid, null, result).asObjectable().getDescription());
+    }
+
     private void waitForThreadsFinish(List<? extends WorkerThread> threads, long timeout) throws InterruptedException {
         LOGGER.info("*** Waiting until finish, at most {} ms ***", timeout);
         long startTime = System.currentTimeMillis();
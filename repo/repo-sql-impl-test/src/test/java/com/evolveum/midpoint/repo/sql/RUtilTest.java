@@ -70,6 +70,29 @@ public class RUtilTest extends BaseSQLRepoTest {
         AssertJUnit.assertEquals(xml, xmlNew);
     }
 
+    @Test
+    public void test300CompressionRoundTrip() throws Exception {
+        assertCompressionRoundTrip("");
+        assertCompressionRoundTrip("<user><name>jack</name></user>");
+
+        // larger than the initial decompression buffer, so the buffer has to grow
+        StringBuilder sb = new StringBuilder("<user>");
+        for (int i = 0; i < 100000; i++) {
+            sb.append("<description>value ").append(i).append("</description>");
+        }
+        sb.append("</user>");
+        assertCompressionRoundTrip(sb.toString());
+    }
+
+    private void assertCompressionRoundTrip(String xml) {
+        byte[] array = RUtil.getByteArrayFromXml(xml, true);
+        LOGGER.info("Original size: {}, compressed size: {}", xml.length(), array.length);
+
+        String xmlNew = RUtil.getXmlFromByteArray(array, true);
+
+        AssertJUnit.assertEquals("Wrong round-trip result for input of length " + xml.length(), xml, xmlNew);
+    }
+
     public double getCompressRatio(double xmlSize, double byteSize) {
         return 100 - (byteSize * 100 / xmlSize);
     }
@@ -37,6 +37,7 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.evolveum.midpoint.repo.api.RepoModifyOptions.createExecuteIfNoChanges;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static org.testng.AssertJUnit.*;
 
@@ -1172,4 +1173,70 @@ public class SearchTest extends BaseSQLRepoTest {
         assertTrue(result.isSuccess());
         assertEquals(1, count.get());
     }
+
+    /**
+     * Plain "OID in (...)" queries are answered without query interpretation. Checks that the results are the same
+     * as for the equivalent query that goes through the interpreter.
+     */
+    @Test
+    public void searchByOidsSameAsInterpreted() throws Exception {
+        OperationResult result = new OperationResult("searchByOidsSameAsInterpreted");
+
+        List<String> userOids = new ArrayList<>();
+        for (PrismObject<UserType> user : repositoryService.searchObjects(UserType.class, null, null, result)) {
+            userOids.add(user.getOid());
+        }
+        assertTrue("Not enough users", userOids.size() >= 2);
+        String first = userOids.get(0);
+        String second = userOids.get(1);
+
+        Collection<SelectorOptions<GetOperationOptions>> raw = SelectorOptions.createCollection(GetOperationOptions.createRaw());
+        Collection<SelectorOptions<GetOperationOptions>> retrievePhoto = getOperationOptionsBuilder()
+                .item(FocusType.F_JPEG_PHOTO).retrieve()
+                .build();
+
+        assertSearchByOids(UserType.class, emptyList(), null, 0);
+        assertSearchByOids(UserType.class, userOids, null, userOids.size());
+        assertSearchByOids(UserType.class, Arrays.asList("unknown-oid-1", "unknown-oid-2"), null, 0);
+        assertSearchByOids(UserType.class, Arrays.asList(first, "unknown-oid-1"), null, 1);
+        assertSearchByOids(UserType.class, Arrays.asList(first, first, second, first), null, 2);
+        assertSearchByOids(UserType.class, userOids, raw, userOids.size());
+        assertSearchByOids(UserType.class, userOids, retrievePhoto, userOids.size());
+        assertSearchByOids(UserType.class, userOids, distinct(), userOids.size());
+        assertSearchByOids(FocusType.class, Arrays.asList(first, second), retrievePhoto, 2);
+        assertSearchByOids(ObjectType.class, Arrays.asList(first, second), null, 2);
+        assertSearchByOids(OrgType.class, Arrays.asList(first, second), null, 0);
+    }
+
+    private <T extends ObjectType> void assertSearchByOids(Class<T> type, List<String> oids,
+            Collection<SelectorOptions<GetOperationOptions>> options, int expectedCount) throws SchemaException {
+        OperationResult result = new OperationResult("assertSearchByOids");
+
+        ObjectQuery query = prismContext.queryFor(type)
+                .id(oids.toArray(new String[0]))
+                .build();
+        // the same filter wrapped in AND, so that it is not recognized as a plain OID search
+        ObjectQuery interpretedQuery = prismContext.queryFactory().createQuery(
+                prismContext.queryFactory().createAnd(query.getFilter().clone()));
+
+        SearchResultList<PrismObject<T>> objects = repositoryService.searchObjects(type, query, options, result);
+        SearchResultList<PrismObject<T>> interpretedObjects = repositoryService.searchObjects(type, interpretedQuery, options, result);
+        result.recomputeStatus();
+        assertSuccess(result);
+
+        String context = type.getSimpleName() + " " + oids + " " + options;
+        assertEquals("Wrong # of objects found for " + context, expectedCount, objects.size());
+        assertEquals("Wrong # of objects found by interpreted query for " + context, expectedCount, interpretedObjects.size());
+        Map<String, PrismObject<T>> interpretedByOid = new HashMap<>();
+        for (PrismObject<T> interpretedObject : interpretedObjects) {
+            interpretedByOid.put(interpretedObject.getOid(), interpretedObject);
+        }
+        for (PrismObject<T> object : objects) {
+            PrismObject<T> interpretedObject = interpretedByOid.get(object.getOid());
+            assertNotNull("Object " + object + " not found by interpreted query for " + context, interpretedObject);
+            assertEquals("Wrong class of " + object + " for " + context, interpretedObject.getCompileTimeClass(), object.getCompileTimeClass());
+            assertTrue("Object " + object + " differs from the one found by interpreted query for " + context,
+                    interpretedObject.equivalent(object));
+        }
+    }
 }
@@ -33,6 +33,10 @@ public class SqlAuditServiceFactory implements AuditServiceFactory {
     private static final String CONF_AUDIT_SERVICE_COLUMNS = "customColumn";
     private static final String CONF_AUDIT_SERVICE_COLUMN_NAME = "columnName";
     private static final String CONF_AUDIT_SERVICE_EVENT_RECORD_PROPERTY_NAME = "eventRecordPropertyName";
+    private static final String CONF_AUDIT_SERVICE_ASYNCHRONOUS = "asynchronous";
+    private static final String CONF_AUDIT_SERVICE_ASYNCHRONOUS_QUEUE_SIZE = "asynchronousQueueSize";
+
+    private static final int DEFAULT_ASYNCHRONOUS_QUEUE_SIZE = 1000;
 
     private SqlRepositoryFactory repositoryFactory;
     private SqlAuditServiceImpl auditService;
@@ -48,6 +52,9 @@ public class SqlAuditServiceFactory implements AuditServiceFactory {
     @Override
     public synchronized void destroy() throws AuditServiceFactoryException {
         LOGGER.info("Destroying Sql audit service factory.");
+        if (auditService != null) {
+            auditService.stopAsynchronousWriter();
+        }
         try {
             repositoryFactory.destroy();
         } catch (RepositoryServiceFactoryException ex) {
@@ -68,6 +75,10 @@ public class SqlAuditServiceFactory implements AuditServiceFactory {
                 String eventRecordPropertyName = getStringFromConfig(subConfigColumn, CONF_AUDIT_SERVICE_EVENT_RECORD_PROPERTY_NAME);
                 auditService.getCustomColumn().put(eventRecordPropertyName, columnName);
             }
+            if (config.getBoolean(CONF_AUDIT_SERVICE_ASYNCHRONOUS, false)) {
+                int queueSize = config.getInt(CONF_AUDIT_SERVICE_ASYNCHRONOUS_QUEUE_SIZE, DEFAULT_ASYNCHRONOUS_QUEUE_SIZE);
+                auditService.startAsynchronousWriter(queueSize);
+            }
         } catch (RepositoryServiceFactoryException ex) {
             throw new AuditServiceFactoryException(ex.getMessage(), ex);
         }
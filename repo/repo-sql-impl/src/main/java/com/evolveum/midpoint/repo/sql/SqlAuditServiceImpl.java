@@ -35,6 +35,7 @@ import com.evolveum.midpoint.util.Holder;
 import com.evolveum.midpoint.util.MiscUtil;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.CleanupPolicyType;
@@ -67,6 +68,12 @@ import java.sql.*;
 import java.util.*;
 import java.util.Date;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiFunction;
 
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
@@ -87,12 +94,27 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
 
     private static final Trace LOGGER = TraceManager.getTrace(SqlAuditServiceImpl.class);
     private static final Integer CLEANUP_AUDIT_BATCH_SIZE = 500;
+    private static final int LIST_RECORDS_FETCH_SIZE = 500;
 
     private static final String QUERY_MAX_RESULT = "setMaxResults";
     private static final String QUERY_FIRST_RESULT = "setFirstResult";
 
     private Map<String, String> customColumn = new HashMap<String, String>();
 
+    private static final int ASYNC_BATCH_SIZE = 50;
+    private static final long ASYNC_POLL_TIMEOUT = 1000L;
+
+    // Asynchronous mode (off by default): records are queued and written in batches by a background thread.
+    // If the queue is full, the record is written synchronously by the caller (back-pressure).
+    // Offers to the queue are done under the read lock; stopping the writer takes the write lock, so no record
+    // can be put into the queue after the writer has decided to stop.
+    private volatile BlockingQueue<AuditEventRecord> asyncQueue;
+    private Thread asyncWriterThread;
+    private volatile boolean asyncWriterStopping;
+    private final ReadWriteLock asyncLock = new ReentrantReadWriteLock();
+    private final AtomicLong asyncQueuedCount = new AtomicLong();
+    private final AtomicLong asyncOverflowCount = new AtomicLong();
+
     public SqlAuditServiceImpl(SqlRepositoryFactory repositoryFactory) {
         super(repositoryFactory);
     }
@@ -102,6 +124,33 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
         Validate.notNull(record, "Audit event record must not be null.");
         Validate.notNull(task, "Task must not be null.");
 
+        if (asyncQueue != null && offerToAsyncQueue(record)) {
+            return;
+        }
+        auditSynchronously(Collections.singletonList(record));
+    }
+
+    private boolean offerToAsyncQueue(AuditEventRecord record) {
+        asyncLock.readLock().lock();
+        try {
+            BlockingQueue<AuditEventRecord> queue = asyncQueue;
+            if (queue == null || asyncWriterStopping) {
+                return false;
+            }
+            // cloning because the caller is free to modify the record (e.g. its deltas) after this method returns
+            if (queue.offer(record.clone())) {
+                asyncQueuedCount.incrementAndGet();
+                return true;
+            }
+        } finally {
+            asyncLock.readLock().unlock();
+        }
+        long overflows = asyncOverflowCount.incrementAndGet();
+        LOGGER.debug("Asynchronous audit queue is full ({} overflows so far), writing the record synchronously", overflows);
+        return false;
+    }
+
+    private void auditSynchronously(List<AuditEventRecord> records) {
         final String operation = "audit";
         SqlPerformanceMonitorImpl pm = getPerformanceMonitor();
         long opHandle = pm.registerOperationStart(operation, AuditEventRecord.class);
@@ -109,7 +158,11 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
 
         while (true) {
             try {
-                auditAttempt(record);
+                if (records.size() == 1) {
+                    auditAttempt(records.get(0), null);
+                } else {
+                    auditBatchAttempt(records);
+                }
                 return;
             } catch (RuntimeException ex) {
                 attempt = baseHelper.logOperationAttempt(null, operation, attempt, ex, null);
@@ -283,10 +336,13 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
                             LOGGER.trace("List records attempt\n  processed query: {}", queryBuilder);
                         }
 
-                        PreparedStatement stmt = queryBuilder.build().createPreparedStatement(con);
-
-                        ResultSet resultList = stmt.executeQuery();
-                        try {
+                        // sub-queries are prepared once and re-executed for each record
+                        try (PreparedStatement stmt = queryBuilder.build().createPreparedStatement(con);
+                                PreparedStatement deltaStmt = con.prepareStatement(deltaQuery);
+                                PreparedStatement propertyStmt = con.prepareStatement(propertyQuery);
+                                PreparedStatement refStmt = con.prepareStatement(refQuery);
+                                PreparedStatement resourceStmt = con.prepareStatement(resourceQuery);
+                                ResultSet resultList = executeStreamingQuery(stmt)) {
                             while (resultList.next()) {
 
                                 AuditEventRecord audit = RAuditEventRecord.fromRepo(resultList);
@@ -296,13 +352,12 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
                                     }
                                 }
 
-                                //query for deltas
-                                PreparedStatement subStmt = con.prepareStatement(deltaQuery);
-                                subStmt.setLong(1, resultList.getLong(RAuditEventRecord.ID_COLUMN_NAME));
-                                ResultSet subResultList = subStmt.executeQuery();
+                                long recordId = resultList.getLong(RAuditEventRecord.ID_COLUMN_NAME);
 
+                                //query for deltas
+                                deltaStmt.setLong(1, recordId);
                                 OperationResult deltaResult = result.createMinorSubresult(OP_LOAD_AUDIT_DELTA);
-                                try {
+                                try (ResultSet subResultList = deltaStmt.executeQuery()) {
                                     while (subResultList.next()) {
                                         try {
                                             ObjectDeltaOperation odo = RObjectDeltaOperation.fromRepo(subResultList, getPrismContext(), getConfiguration().isUsingSQLServer());
@@ -318,53 +373,33 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
 
                                     }
                                 } finally {
-                                    subResultList.close();
-                                    subStmt.close();
                                     deltaResult.computeStatus();
                                 }
 
                                 //query for properties
-                                subStmt = con.prepareStatement(propertyQuery);
-                                subStmt.setLong(1, resultList.getLong(RAuditEventRecord.ID_COLUMN_NAME));
-                                subResultList = subStmt.executeQuery();
-
-                                try {
+                                propertyStmt.setLong(1, recordId);
+                                try (ResultSet subResultList = propertyStmt.executeQuery()) {
                                     while (subResultList.next()) {
                                         audit.addPropertyValue(subResultList.getString(RAuditPropertyValue.NAME_COLUMN_NAME),
                                                                subResultList.getString(RAuditPropertyValue.VALUE_COLUMN_NAME));
                                     }
-                                } finally {
-                                    subResultList.close();
-                                    subStmt.close();
                                 }
 
                                 //query for references
-                                subStmt = con.prepareStatement(refQuery);
-                                subStmt.setLong(1, resultList.getLong(RAuditEventRecord.ID_COLUMN_NAME));
-                                subResultList = subStmt.executeQuery();
-
-                                try {
+                                refStmt.setLong(1, recordId);
+                                try (ResultSet subResultList = refStmt.executeQuery()) {
                                     while (subResultList.next()) {
                                         audit.addReferenceValue(subResultList.getString(RAuditReferenceValue.NAME_COLUMN_NAME),
                                                 RAuditReferenceValue.fromRepo(subResultList));
                                     }
-                                } finally {
-                                    subResultList.close();
-                                    subStmt.close();
                                 }
 
                                 //query for target resource oids
-                                subStmt = con.prepareStatement(resourceQuery);
-                                subStmt.setLong(1, resultList.getLong(RAuditEventRecord.ID_COLUMN_NAME));
-                                subResultList = subStmt.executeQuery();
-
-                                try {
+                                resourceStmt.setLong(1, recordId);
+                                try (ResultSet subResultList = resourceStmt.executeQuery()) {
                                     while (subResultList.next()) {
                                         audit.addResourceOid(subResultList.getString(RTargetResourceOid.RESOURCE_OID_COLUMN_NAME));
                                     }
-                                } finally {
-                                    subResultList.close();
-                                    subStmt.close();
                                 }
 
                                 try {
@@ -390,7 +425,6 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
                                 }
                             }
                         }finally {
-                            stmt.close();
                             result.computeStatus();
                         }
 
@@ -508,10 +542,148 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
         return result;
     }
 
-    private void auditAttempt(AuditEventRecord record) {
+    private static ResultSet executeStreamingQuery(PreparedStatement stmt) throws SQLException {
+        // lets the driver stream the rows instead of reading the whole result into memory (e.g. PostgreSQL)
+        stmt.setFetchSize(LIST_RECORDS_FETCH_SIZE);
+        return stmt.executeQuery();
+    }
+
+    /**
+     * Starts the asynchronous writer. Audit records are then put into a bounded queue of given size
+     * and written by a background thread, several records in a single transaction.
+     *
+     * Records that are in the queue are lost if the JVM crashes. Therefore this mode is off by default.
+     */
+    public synchronized void startAsynchronousWriter(int queueSize) {
+        if (asyncWriterThread != null) {
+            return;
+        }
+        LOGGER.info("Starting asynchronous audit writer with queue size of {}", queueSize);
+        asyncWriterStopping = false;
+        asyncQueue = new ArrayBlockingQueue<>(queueSize);
+        asyncWriterThread = new Thread(this::runAsynchronousWriter, "midpoint-audit-writer");
+        asyncWriterThread.setDaemon(true);
+        asyncWriterThread.start();
+    }
+
+    /**
+     * Stops the asynchronous writer, waiting until all the queued records are written.
+     */
+    public synchronized void stopAsynchronousWriter() {
+        if (asyncWriterThread == null) {
+            return;
+        }
+        asyncLock.writeLock().lock();
+        try {
+            asyncWriterStopping = true;
+        } finally {
+            asyncLock.writeLock().unlock();
+        }
+        try {
+            asyncWriterThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for asynchronous audit writer to finish, writing the remaining records here");
+        }
+        BlockingQueue<AuditEventRecord> queue = asyncQueue;
+        asyncWriterThread = null;
+        asyncQueue = null;
+        // Normally empty. But if the writer was interrupted or has not finished yet, we write the rest ourselves.
+        List<AuditEventRecord> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeAsynchronousBatch(remaining);
+        }
+        LOGGER.info("Asynchronous audit writer stopped. Records queued: {}, written synchronously because of full queue: {}",
+                asyncQueuedCount.get(), asyncOverflowCount.get());
+    }
+
+    public long getAsyncQueuedCount() {
+        return asyncQueuedCount.get();
+    }
+
+    public long getAsyncOverflowCount() {
+        return asyncOverflowCount.get();
+    }
+
+    public int getAsyncQueueSize() {
+        BlockingQueue<AuditEventRecord> queue = asyncQueue;
+        return queue != null ? queue.size() : 0;
+    }
+
+    private void runAsynchronousWriter() {
+        BlockingQueue<AuditEventRecord> queue = asyncQueue;
+        List<AuditEventRecord> batch = new ArrayList<>(ASYNC_BATCH_SIZE);
+        boolean interrupted = false;
+        while (!asyncWriterStopping || !queue.isEmpty()) {
+            try {
+                AuditEventRecord first = queue.poll(ASYNC_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, ASYNC_BATCH_SIZE - 1);
+                writeAsynchronousBatch(batch);
+            } catch (InterruptedException e) {
+                // we write the remaining records and then finish
+                interrupted = true;
+                asyncWriterStopping = true;
+            } finally {
+                batch.clear();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the batch in a single transaction. If that fails, each record is written in its own transaction,
+     * so that a single bad record does not cause the others to be lost.
+     */
+    private void writeAsynchronousBatch(List<AuditEventRecord> batch) {
+        try {
+            auditSynchronously(batch);
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Couldn't write audit record {}", e, batch.get(0));
+                return;
+            }
+            LOGGER.warn("Couldn't write {} audit records in a single transaction, writing them one by one: {}",
+                    batch.size(), e.getMessage(), e);
+        }
+        for (AuditEventRecord record : batch) {
+            try {
+                auditSynchronously(Collections.singletonList(record));
+            } catch (RuntimeException e) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Couldn't write audit record {}", e, record);
+            }
+        }
+    }
+
+    private void auditBatchAttempt(List<AuditEventRecord> records) {
         Session session = null;
         try {
             session = baseHelper.beginTransaction();
+            for (AuditEventRecord record : records) {
+                auditAttempt(record, session);
+            }
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+
+    /**
+     * If batchSession is provided, the record is written using it and the transaction is finished by the caller.
+     */
+    private void auditAttempt(AuditEventRecord record, Session batchSession) {
+        Session session = null;
+        try {
+            session = batchSession != null ? batchSession : baseHelper.beginTransaction();
 //            RAuditEventRecord newRecord = RAuditEventRecord.toRepo(record, getPrismContext(), true);
 //            session.save(newRecord);
             SingleSqlQuery query = RAuditEventRecord.toRepo(record, customColumn);
@@ -614,13 +786,17 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
                 }
             });
 
-            session.getTransaction().commit();
+            if (batchSession == null) {
+                session.getTransaction().commit();
+            }
         } catch (DtoTranslationException ex) {
             baseHelper.handleGeneralCheckedException(ex, session, null);
         } catch (RuntimeException ex) {
             baseHelper.handleGeneralRuntimeException(ex, session, null);
         } finally {
-            baseHelper.cleanupSessionAndResult(session, null);
+            if (batchSession == null) {
+                baseHelper.cleanupSessionAndResult(session, null);
+            }
         }
     }
 
@@ -713,6 +889,8 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
         long start = System.currentTimeMillis();
         boolean first = true;
         Holder<Integer> totalCountHolder = new Holder<>(0);
+        // number of records to be deleted, determined by the first batch (counting the whole table for each batch is too expensive)
+        Holder<Integer> recordsToDeleteHolder = new Holder<>();
         try {
             while (true) {
                 try {
@@ -728,7 +906,8 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
                         LOGGER.debug(
                                 "Starting audit cleanup batch, keeping at most {} records, batch size {}, up to now deleted {} entries.",
                                 recordsToKeep, CLEANUP_AUDIT_BATCH_SIZE, totalCountHolder.getValue());
-                        count = batchDeletionAttempt((session, tempTable) -> selectRecordsByNumberToKeep(session, tempTable, recordsToKeep, dialect),
+                        count = batchDeletionAttempt((session, tempTable) -> selectRecordsByNumberToKeep(session, tempTable,
+                                recordsToKeep, recordsToDeleteHolder, totalCountHolder.getValue(), dialect),
                                 totalCountHolder, batchStart, dialect, parentResult);
                     } while (count > 0);
                     return;
@@ -844,19 +1023,30 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
         return query.executeUpdate();
     }
 
-    private int selectRecordsByNumberToKeep(Session session, String tempTable, Integer recordsToKeep, Dialect dialect) {
-        CriteriaBuilder cb = session.getCriteriaBuilder();
-        CriteriaQuery cq = cb.createQuery(RAuditEventRecord.class);
-        cq.select(cb.count(cq.from(RAuditEventRecord.class)));
-        Number totalAuditRecords = (Number) session.createQuery(cq).uniqueResult();
-        int recordsToDelete = totalAuditRecords.intValue() - recordsToKeep;
+    /**
+     * Records are counted only once per cleanup run (in the first batch); subsequent batches only subtract
+     * the number of records already deleted. Records created during the cleanup are therefore not deleted
+     * by this run, which is fine - they will be taken into account by the next one.
+     */
+    private int selectRecordsByNumberToKeep(Session session, String tempTable, Integer recordsToKeep,
+            Holder<Integer> recordsToDeleteHolder, int alreadyDeleted, Dialect dialect) {
+        if (recordsToDeleteHolder.isEmpty()) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery cq = cb.createQuery(RAuditEventRecord.class);
+            cq.select(cb.count(cq.from(RAuditEventRecord.class)));
+            Number totalAuditRecords = (Number) session.createQuery(cq).uniqueResult();
+            recordsToDeleteHolder.setValue(Math.max(totalAuditRecords.intValue() - recordsToKeep, 0));
+            LOGGER.debug("Total audit records: {}, records to keep: {} => records to delete: {}",
+                    totalAuditRecords, recordsToKeep, recordsToDeleteHolder.getValue());
+        }
+        int recordsToDelete = recordsToDeleteHolder.getValue() - alreadyDeleted;
         if (recordsToDelete <= 0) {
             recordsToDelete = 0;
         } else if (recordsToDelete > CLEANUP_AUDIT_BATCH_SIZE) {
             recordsToDelete = CLEANUP_AUDIT_BATCH_SIZE;
         }
-        LOGGER.debug("Total audit records: {}, records to keep: {} => records to delete in this batch: {}",
-                totalAuditRecords, recordsToKeep, recordsToDelete);
+        LOGGER.debug("Records to keep: {}, already deleted: {} => records to delete in this batch: {}",
+                recordsToKeep, alreadyDeleted, recordsToDelete);
         if (recordsToDelete == 0) {
             return 0;
         }
@@ -40,8 +40,10 @@ public class ExtItemDictionary {
     @Autowired private SqlRepositoryServiceImpl repositoryService;
     @Autowired private BaseHelper baseHelper;
 
-    private Map<Integer, RExtItem> itemsById;
-    private Map<RExtItem.Key, RExtItem> itemsByKey;
+    // Maps are replaced as a whole when (re)fetched, so they can be read without locking.
+    // Locking is needed only when an item is not found (and so fetching or creating it is necessary).
+    private volatile Map<Integer, RExtItem> itemsById;
+    private volatile Map<RExtItem.Key, RExtItem> itemsByKey;
 
     private boolean fetchItemsIfNeeded() {
         if (itemsByKey != null) {
@@ -66,13 +68,15 @@ public class ExtItemDictionary {
             List<RExtItem> items = session.createQuery(query).getResultList();
             LOGGER.debug("Fetched {} item definitions", items.size());
 
-            itemsById = new ConcurrentHashMap<>(items.size());
-            itemsByKey = new ConcurrentHashMap<>(items.size());
+            Map<Integer, RExtItem> newItemsById = new ConcurrentHashMap<>(items.size());
+            Map<RExtItem.Key, RExtItem> newItemsByKey = new ConcurrentHashMap<>(items.size());
 
             for (RExtItem item : items) {
-                itemsById.put(item.getId(), item);
-                itemsByKey.put(item.toKey(), item);
+                newItemsById.put(item.getId(), item);
+                newItemsByKey.put(item.toKey(), item);
             }
+            itemsById = newItemsById;
+            itemsByKey = newItemsByKey;
 
             session.getTransaction().commit();
         } catch (RuntimeException ex) {
@@ -84,26 +88,38 @@ public class ExtItemDictionary {
     }
 
     @NotNull
-    public synchronized RExtItem createOrFindItemDefinition(@NotNull ItemDefinition<?> definition, boolean throwExceptionAfterCreate) {
+    public RExtItem createOrFindItemDefinition(@NotNull ItemDefinition<?> definition, boolean throwExceptionAfterCreate) {
         return createOrFindItemByDefinitionInternal(definition, true, throwExceptionAfterCreate);
     }
 
     @NotNull
-    public synchronized RExtItem createOrFindItemDefinition(@NotNull ItemDefinition<?> definition) {
+    public RExtItem createOrFindItemDefinition(@NotNull ItemDefinition<?> definition) {
         return createOrFindItemByDefinitionInternal(definition, true, true);
     }
 
     @Nullable
-    public synchronized RExtItem findItemByDefinition(@NotNull ItemDefinition<?> definition) {
+    public RExtItem findItemByDefinition(@NotNull ItemDefinition<?> definition) {
         return createOrFindItemByDefinitionInternal(definition, false, true);
     }
 
     @Contract("_, _, true -> !null")
     private RExtItem createOrFindItemByDefinitionInternal(
             @NotNull ItemDefinition<?> definition, boolean create, boolean throwExceptionAfterCreate) {
+        RExtItem.Key key = RExtItem.createKeyFromDefinition(definition);
+        Map<RExtItem.Key, RExtItem> currentItemsByKey = itemsByKey;
+        RExtItem existing = currentItemsByKey != null ? currentItemsByKey.get(key) : null;
+        if (existing != null) {
+            return existing;
+        } else {
+            return createOrFindItemByKeySynchronized(definition, key, create, throwExceptionAfterCreate);
+        }
+    }
+
+    @Contract("_, _, true, _ -> !null")
+    private synchronized RExtItem createOrFindItemByKeySynchronized(@NotNull ItemDefinition<?> definition,
+            RExtItem.Key key, boolean create, boolean throwExceptionAfterCreate) {
 
         boolean fetchedNow = fetchItemsIfNeeded();
-        RExtItem.Key key = RExtItem.createKeyFromDefinition(definition);
 
         RExtItem item = itemsByKey.get(key);
 
@@ -165,7 +181,17 @@ public class ExtItemDictionary {
         }
     }
 
-    public synchronized RExtItem getItemById(Integer extItemId) {
+    public RExtItem getItemById(Integer extItemId) {
+        Map<Integer, RExtItem> currentItemsById = itemsById;
+        RExtItem existing = currentItemsById != null ? currentItemsById.get(extItemId) : null;
+        if (existing != null) {
+            return existing;
+        } else {
+            return getItemByIdSynchronized(extItemId);
+        }
+    }
+
+    private synchronized RExtItem getItemByIdSynchronized(Integer extItemId) {
         boolean fresh = fetchItemsIfNeeded();
         RExtItem extItem = itemsById.get(extItemId);
         if (extItem != null || fresh) {
@@ -11,6 +11,7 @@ import com.evolveum.midpoint.common.crypto.CryptoUtil;
 import com.evolveum.midpoint.prism.*;
 import com.evolveum.midpoint.prism.path.ItemName;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.query.InOidFilter;
 import com.evolveum.midpoint.prism.query.ObjectPaging;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.repo.api.RepositoryObjectDiagnosticData;
@@ -386,13 +387,17 @@ public class ObjectRetriever {
         Session session = null;
         try {
             session = baseHelper.beginReadOnlyTransaction();
-            RQuery rQuery;
 
-            QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, prismContext, relationRegistry);
-            rQuery = engine.interpret(query, type, options, false, session);
-
-            @SuppressWarnings({"unchecked", "raw"})
-            List<GetObjectResult> queryResult = rQuery.list();
+            List<GetObjectResult> queryResult;
+            Collection<String> oids = getSimpleOidSearchOids(query);
+            if (oids != null) {
+                queryResult = searchObjectsByOids(type, oids, session);
+            } else {
+                QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, prismContext, relationRegistry);
+                RQuery rQuery = engine.interpret(query, type, options, false, session);
+                //noinspection unchecked
+                queryResult = rQuery.list();
+            }
             LOGGER.trace("Found {} objects, translating to JAXB.", queryResult != null ? queryResult.size() : 0);
 
             List<PrismObject<T>> list = queryResultToPrismObjects(queryResult, type, options, session, result);
@@ -407,6 +412,33 @@ public class ObjectRetriever {
         }
     }
 
+    /**
+     * Returns OIDs if the query is a plain "OID in (...)" search without paging, i.e. the most common query shape
+     * that can be answered without query interpretation. Returns null otherwise.
+     */
+    private Collection<String> getSimpleOidSearchOids(ObjectQuery query) {
+        if (query == null || query.getPaging() != null || !(query.getFilter() instanceof InOidFilter)) {
+            return null;
+        }
+        InOidFilter filter = (InOidFilter) query.getFilter();
+        if (filter.isConsiderOwner() || filter.getExpression() != null || filter.getOids() == null
+                || filter.getOids().isEmpty()) {
+            return null;
+        }
+        return filter.getOids();
+    }
+
+    private <T extends ObjectType> List<GetObjectResult> searchObjectsByOids(Class<T> type, Collection<String> oids,
+            Session session) {
+        LOGGER.trace("Searching {} by OIDs {} without query interpretation", type.getSimpleName(), oids);
+        Query query = session.createQuery("select o.oid, o.fullObject, 0, 0, 0, 0, 0, 0 from "
+                + ClassMapper.getHQLType(type) + " as o where o.oid in (:oids)");
+        query.setParameterList("oids", oids);
+        query.setResultTransformer(GetObjectResult.RESULT_STYLE.getResultTransformer());
+        //noinspection unchecked
+        return query.list();
+    }
+
     @NotNull
     private <T extends ObjectType> List<PrismObject<T>> queryResultToPrismObjects(List<GetObjectResult> objects, Class<T> type,
             Collection<SelectorOptions<GetOperationOptions>> options,
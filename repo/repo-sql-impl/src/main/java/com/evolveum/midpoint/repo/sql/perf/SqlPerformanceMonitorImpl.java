@@ -33,6 +33,11 @@ public class SqlPerformanceMonitorImpl implements PerformanceMonitor {
     public static final int LEVEL_LOCAL_STATISTICS = 4;
     public static final int LEVEL_DETAILS = 10;
 
+    /**
+     * Key under which repeated attempts of operations not related to any object type are counted.
+     */
+    public static final String CONFLICTS_WITHOUT_OBJECT_TYPE = "(no object type)";
+
     private int initialLevel = 0;
     private int level = 0;
 
@@ -64,11 +69,19 @@ public class SqlPerformanceMonitorImpl implements PerformanceMonitor {
      */
     private final PerformanceInformationImpl globalPerformanceInformation = new PerformanceInformationImpl();
 
+    /**
+     * Number of repeated attempts (caused by serialization/locking conflicts) per object type, regardless of
+     * classification settings. Shows which object types are contended, e.g. tasks or roles with many members.
+     * It is used at levels > NONE (0).
+     */
+    private final Map<String, AtomicLong> conflictsPerObjectType = new ConcurrentHashMap<>();
+
     private SqlRepositoryFactory sqlRepositoryFactory;
 
     @Override
     public void clearGlobalPerformanceInformation() {
         globalPerformanceInformation.clear();
+        conflictsPerObjectType.clear();
     }
 
     @Override
@@ -95,6 +108,7 @@ public class SqlPerformanceMonitorImpl implements PerformanceMonitor {
         outstandingOperations.clear();
         finishedOperations.clear();
         globalPerformanceInformation.clear();
+        conflictsPerObjectType.clear();
         threadLocalPerformanceInformation.remove();         // at least for this thread; other threads have to do their own homework
         this.sqlRepositoryFactory = sqlRepositoryFactory;
         this.level = this.initialLevel = sqlRepositoryFactory.getSqlConfiguration().getPerformanceStatisticsLevel();
@@ -117,6 +131,9 @@ public class SqlPerformanceMonitorImpl implements PerformanceMonitor {
         if (level >= LEVEL_GLOBAL_STATISTICS) {
             LOGGER.info("Global performance information:\n{}", globalPerformanceInformation.debugDump());
         }
+        if (!conflictsPerObjectType.isEmpty()) {
+            LOGGER.info("Repeated attempts per object type: {}", getConflictCounts());
+        }
         OperationsPerformanceMonitorImpl.INSTANCE.shutdown();
     }
 
@@ -181,10 +198,21 @@ public class SqlPerformanceMonitorImpl implements PerformanceMonitor {
             if (isOperationHandleOk(operation, opHandle)) {
                 operation.setWastedTime(System.currentTimeMillis() - operation.getStartTime());
                 operation.setAttempts(attempt);
+                String objectTypeName = operation.getObjectType() != null ?
+                        operation.getObjectType().getSimpleName() : CONFLICTS_WITHOUT_OBJECT_TYPE;
+                conflictsPerObjectType.computeIfAbsent(objectTypeName, k -> new AtomicLong())
+                        .incrementAndGet();
             }
         }
     }
 
+    @Override
+    public Map<String, Long> getConflictCounts() {
+        Map<String, Long> rv = new TreeMap<>();
+        conflictsPerObjectType.forEach((type, count) -> rv.put(type, count.get()));
+        return rv;
+    }
+
     // to be used in tests
     @SuppressWarnings("unused")     // maybe in future
     public List<OperationRecord> getFinishedOperations(String kind) {
@@ -44,6 +44,12 @@ public final class QueryDefinitionRegistry2 implements DebugDumpable {
     private static final Trace LOGGER = TraceManager.getTrace(QueryDefinitionRegistry2.class);
     private static final Map<QName, JpaEntityDefinition> DEFINITIONS;
 
+    /**
+     * Children (direct and indirect) of entity definitions, more abstract ones first. Precomputed because
+     * they are needed for each item path resolved against an abstract entity (e.g. RObject, RFocus).
+     */
+    private static final Map<JpaEntityDefinition, List<JpaEntityDefinition>> CHILDREN;
+
     private static QueryDefinitionRegistry2 registry;
 
     static {
@@ -121,6 +127,12 @@ public final class QueryDefinitionRegistry2 implements DebugDumpable {
             }
 
             DEFINITIONS = Collections.unmodifiableMap(map);
+
+            Map<JpaEntityDefinition, List<JpaEntityDefinition>> children = new HashMap<>();
+            for (JpaEntityDefinition definition : map.values()) {
+                children.put(definition, Collections.unmodifiableList(computeChildrenOf(definition)));
+            }
+            CHILDREN = children;
         } catch (Throwable t) {
             LOGGER.error("Couldn't initialize query definition registry: {}", t.getMessage(), t);
             throw t;
@@ -193,16 +205,21 @@ public final class QueryDefinitionRegistry2 implements DebugDumpable {
      * More abstract classes are listed first.
      */
     public List<JpaEntityDefinition> getChildrenOf(JpaEntityDefinition entityDefinition) {
+        List<JpaEntityDefinition> children = CHILDREN.get(entityDefinition);
+        return children != null ? children : computeChildrenOf(entityDefinition);
+    }
+
+    private static List<JpaEntityDefinition> computeChildrenOf(JpaEntityDefinition entityDefinition) {
         List<JpaEntityDefinition> retval = new ArrayList<>();
         List<JpaEntityDefinition> children = getDirectChildrenOf(entityDefinition);
         for (JpaEntityDefinition child : children) {
             retval.add(child);
-            retval.addAll(getChildrenOf(child));
+            retval.addAll(computeChildrenOf(child));
         }
         return retval;
     }
 
-    private List<JpaEntityDefinition> getDirectChildrenOf(JpaEntityDefinition parentDefinition) {
+    private static List<JpaEntityDefinition> getDirectChildrenOf(JpaEntityDefinition parentDefinition) {
         Class parentClass = parentDefinition.getJpaClass();
         List<JpaEntityDefinition> retval = new ArrayList<>();
         for (JpaEntityDefinition definition : DEFINITIONS.values()) {
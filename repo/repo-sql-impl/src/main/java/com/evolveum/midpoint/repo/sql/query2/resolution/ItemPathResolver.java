@@ -34,6 +34,7 @@ import org.apache.commons.lang.ObjectUtils;
 import javax.xml.namespace.QName;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -253,11 +254,13 @@ public class ItemPathResolver {
     }
 
     private List<JpaEntityDefinition> findPossibleBaseEntities(JpaEntityDefinition entityDefinition, QueryDefinitionRegistry2 registry) {
-        List<JpaEntityDefinition> retval = new ArrayList<>();
-        retval.add(entityDefinition);               // (possibly) abstract one has to go first
-        if (entityDefinition.isAbstract()) {        // just for efficiency
-            retval.addAll(registry.getChildrenOf(entityDefinition));
+        if (!entityDefinition.isAbstract()) {       // just for efficiency
+            return Collections.singletonList(entityDefinition);
         }
+        List<JpaEntityDefinition> children = registry.getChildrenOf(entityDefinition);
+        List<JpaEntityDefinition> retval = new ArrayList<>(children.size() + 1);
+        retval.add(entityDefinition);               // (possibly) abstract one has to go first
+        retval.addAll(children);
         return retval;
     }
 
@@ -103,6 +103,14 @@ public final class RUtil {
 
     private static final int DB_OBJECT_NAME_MAX_LENGTH = 30;
 
+    private static final int GZIP_BUFFER_SIZE = 8192;
+    private static final int EXPECTED_COMPRESSION_RATIO = 5;
+    /**
+     * Decompressed size is only estimated, so the output buffer starts small and grows if needed.
+     * A large initial buffer would be allocated (and mostly wasted) for every object read.
+     */
+    private static final int MAX_INITIAL_BUFFER_SIZE = 256 * 1024;
+
     private RUtil() {
     }
 
@@ -439,15 +447,16 @@ public final class RUtil {
         GZIPOutputStream gzip = null;
         try {
             if (compress) {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                gzip = new GZIPOutputStream(out);
-                gzip.write(xml.getBytes(StandardCharsets.UTF_8.name()));
+                // XML compresses quite well; presizing avoids repeated re-allocation of the output buffer
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(xml.length() / EXPECTED_COMPRESSION_RATIO, 64));
+                gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                gzip.write(xml.getBytes(StandardCharsets.UTF_8));
                 gzip.close();
                 out.close();
 
                 array = out.toByteArray();
             } else {
-                array = xml.getBytes(StandardCharsets.UTF_8.name());
+                array = xml.getBytes(StandardCharsets.UTF_8);
             }
         } catch (Exception ex) {
             throw new SystemException("Couldn't save full xml object, reason: " + ex.getMessage(), ex);
@@ -473,10 +482,11 @@ public final class RUtil {
         try {
             if (compressed) {
                 try {
-                    ByteArrayOutputStream out = new ByteArrayOutputStream();
-                    gzip = new GZIPInputStream(new ByteArrayInputStream(array));
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(
+                            (int) Math.min((long) array.length * EXPECTED_COMPRESSION_RATIO, MAX_INITIAL_BUFFER_SIZE));
+                    gzip = new GZIPInputStream(new ByteArrayInputStream(array), GZIP_BUFFER_SIZE);
                     IOUtils.copy(gzip, out);
-                    xml = new String(out.toByteArray(), StandardCharsets.UTF_8);
+                    xml = out.toString(StandardCharsets.UTF_8.name());
                 } catch (ZipException ex) {
                     LOGGER.debug("Byte array should represent compressed (gzip) string, but: {}", ex.getMessage());
 